@@ -0,0 +1,47 @@
+package com.cookandroid.findcolorgame;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.cookandroid.findcolorgame.core.ranking.AllTimeRankingRepository;
+import com.cookandroid.findcolorgame.core.ranking.AllTimeRankingRepositoryContract;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.database.FirebaseDatabase;
+
+import org.junit.Before;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RealtimeRankingRepository 를 Realtime Database 에뮬레이터에 붙여 저장소 계약을 확인한다.
+ * 먼저 에뮬레이터를 띄운다: firebase emulators:start --only database
+ * 안드로이드 에뮬레이터에서 호스트 컴퓨터는 10.0.2.2 다.
+ */
+@RunWith(AndroidJUnit4.class)
+public class RealtimeRankingRepositoryContractTest extends AllTimeRankingRepositoryContract {
+
+    private static final String EMULATOR_HOST = "10.0.2.2";
+    private static final int EMULATOR_PORT = 9000;
+
+    private static FirebaseDatabase database;
+
+    private static synchronized FirebaseDatabase database() {
+        if (database == null) {
+            // useEmulator 는 첫 사용 전에 한 번만 부를 수 있다
+            database = FirebaseDatabase.getInstance();
+            database.useEmulator(EMULATOR_HOST, EMULATOR_PORT);
+        }
+        return database;
+    }
+
+    @Before
+    public void clearDatabase() throws Exception {
+        Tasks.await(database().getReference().removeValue(), 10, TimeUnit.SECONDS);
+    }
+
+    @Override
+    protected AllTimeRankingRepository newRepository() {
+        return new RealtimeRankingRepository(database(), Executors.newSingleThreadExecutor());
+    }
+}
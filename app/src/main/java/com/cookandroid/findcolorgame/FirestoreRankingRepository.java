@@ -0,0 +1,278 @@
+package com.cookandroid.findcolorgame;
+
+import com.cookandroid.findcolorgame.core.ranking.AllTimeRankingRepository;
+import com.cookandroid.findcolorgame.core.ranking.LeaderboardWindow;
+import com.cookandroid.findcolorgame.core.ranking.PendingScore;
+import com.cookandroid.findcolorgame.core.ranking.RankChange;
+import com.cookandroid.findcolorgame.core.ranking.RankEntry;
+import com.cookandroid.findcolorgame.core.ranking.RankingRecordCodec;
+import com.cookandroid.findcolorgame.core.ranking.RankingRepository;
+import com.cookandroid.findcolorgame.core.ranking.RankingSchema;
+import com.cookandroid.findcolorgame.core.ranking.ScoreHistogram;
+import com.cookandroid.findcolorgame.core.ranking.TopSnapshotCodec;
+import com.google.firebase.firestore.AggregateSource;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * rankings/{uid} 문서를 쓰는 Firestore 랭킹 저장소.
+ * allTime 으로 만들면 점수 분포까지 읽는 전체 기간 저장소가 되고, forWindow 로 만들면
+ * 일간/주간 칸 하나(leaderboards/{bucket}/rankings)만 읽는 저장소가 된다. 칸에는 점수 분포가 없다.
+ * 기록에는 점수만 있으므로 읽은 줄의 이름은 ProfileNames 로 채운다.
+ */
+public class FirestoreRankingRepository implements RankingRepository {
+
+    private final FirebaseFirestore db;
+    private final CollectionReference rankings;
+    private final DocumentReference topSnapshotRef;
+    private final ProfileNames profileNames;
+    final Executor parseExecutor; // 읽은 결과를 RankEntry 로 바꾸는 스레드
+
+    private FirestoreRankingRepository(FirebaseFirestore db, CollectionReference rankings,
+                                       DocumentReference topSnapshotRef, ProfileNames profileNames,
+                                       Executor parseExecutor) {
+        this.db = db;
+        this.rankings = rankings;
+        this.topSnapshotRef = topSnapshotRef;
+        this.profileNames = profileNames;
+        this.parseExecutor = parseExecutor;
+    }
+
+    /**
+     * rankings 전체 기간 저장소.
+     */
+    static AllTimeRankingRepository allTime(FirebaseFirestore db, ProfileNames profileNames, Executor parseExecutor) {
+        return new AllTime(db, profileNames, parseExecutor);
+    }
+
+    /**
+     * nowMillis 가 속한 일간/주간 칸만 읽는 저장소. 칸에는 상위 목록 문서가 없으므로 topSnapshot 은 topN 으로 읽는다.
+     */
+    static FirestoreRankingRepository forWindow(FirebaseFirestore db, LeaderboardWindow window, long nowMillis,
+                                                ProfileNames profileNames, Executor parseExecutor) {
+        return new FirestoreRankingRepository(db, db.collection(window.collectionPath(nowMillis)), null,
+                profileNames, parseExecutor);
+    }
+
+    @Override
+    public CompletableFuture<Void> submit(String uid, String name, int score) {
+        // 어느 저장소로 올려도 모든 기간의 칸에 함께 쓴다
+        PendingScore pending = new PendingScore(null, uid, name, score, System.currentTimeMillis());
+        return TaskFutures.toFuture(db.runTransaction(transaction -> {
+            FirestoreScoreBackend.writeScores(db, transaction, Collections.singletonList(pending));
+            return null;
+        }));
+    }
+
+    @Override
+    public CompletableFuture<List<RankEntry>> topN(int n) {
+        return TaskFutures.toFuture(topQuery(n).get(), parseExecutor)
+                .thenCompose(this::toNamedEntries);
+    }
+
+    @Override
+    public CompletableFuture<List<RankEntry>> pageAfter(RankEntry after, int n) {
+        Query query = rankOrder();
+        if (after != null) {
+            query = query.startAfter(after.getScore(), after.getUid());
+        }
+        return TaskFutures.toFuture(query.limit(n).get(), parseExecutor)
+                .thenCompose(this::toNamedEntries);
+    }
+
+    @Override
+    public CompletableFuture<List<RankEntry>> pageBefore(RankEntry before, int n) {
+        // 같은 정렬에서 커서 바로 앞의 n 개. limitToLast 라 결과는 위에서 아래 순서 그대로다
+        Query query = rankOrder().endBefore(before.getScore(), before.getUid()).limitToLast(n);
+        return TaskFutures.toFuture(query.get(), parseExecutor)
+                .thenCompose(this::toNamedEntries);
+    }
+
+    @Override
+    public CompletableFuture<RankEntry> entryOf(String uid) {
+        return TaskFutures.toFuture(rankings.document(uid).get(), parseExecutor).thenCompose(snapshot -> {
+            if (!snapshot.exists()) {
+                return CompletableFuture.completedFuture(null);
+            }
+            return profileNames.withNames(Collections.singletonList(toEntry(snapshot)), parseExecutor)
+                    .thenApply(named -> named.get(0));
+        });
+    }
+
+    @Override
+    public CompletableFuture<Integer> rankOf(String uid) {
+        return TaskFutures.toFuture(rankings.document(uid).get()).thenCompose(snapshot -> {
+            Integer mine = RankingRecordCodec.scoreOf(snapshot.getData());
+            if (mine == null) {
+                return CompletableFuture.completedFuture(0);
+            }
+            // 문서를 내려받지 않고 서버에서 개수만 센다
+            return TaskFutures.toFuture(rankings.whereGreaterThan(RankingSchema.FIELD_COMPACT_SCORE, mine)
+                    .count().get(AggregateSource.SERVER))
+                    .thenApply(count -> (int) count.getCount() + 1);
+        });
+    }
+
+    @Override
+    public CompletableFuture<List<RankEntry>> topSnapshot() {
+        if (topSnapshotRef == null) {
+            return topN(RankingSchema.MATERIALIZED_TOP_N);
+        }
+        return TaskFutures.toFuture(topSnapshotRef.get(), parseExecutor).thenCompose(snapshot -> {
+            if (!snapshot.exists()) {
+                // 압축 작업이 아직 한 번도 돌지 않았다
+                return topN(RankingSchema.MATERIALIZED_TOP_N);
+            }
+            List<RankEntry> top = TopSnapshotCodec.decode(snapshot.getData());
+            profileNames.remember(top); // 이어서 읽는 페이지와 "내 주변"이 프로필을 다시 읽지 않도록
+            return CompletableFuture.completedFuture(top);
+        });
+    }
+
+    @Override
+    public Registration observe(int n, Listener listener) {
+        // 이름을 채우는 동안 다음 스냅샷이 와도 순서대로 넘기도록 앞의 전달 뒤에 잇는다
+        AtomicReference<CompletableFuture<Void>> delivered =
+                new AtomicReference<>(CompletableFuture.completedFuture(null));
+        ListenerRegistration registration = topQuery(n).addSnapshotListener(parseExecutor, (querySnapshot, e) -> {
+            if (e != null) {
+                listener.onError(e);
+            } else if (querySnapshot != null) {
+                List<RankEntry> entries = toEntries(querySnapshot);
+                delivered.set(delivered.get()
+                        .thenCompose(ignored -> profileNames.withNames(entries, parseExecutor))
+                        .thenAccept(listener::onChanged));
+            }
+        });
+        return registration::remove;
+    }
+
+    @Override
+    public Registration observeChanges(int n, ChangeListener listener) {
+        AtomicReference<CompletableFuture<Void>> delivered =
+                new AtomicReference<>(CompletableFuture.completedFuture(null));
+        ListenerRegistration registration = topQuery(n).addSnapshotListener(parseExecutor, (querySnapshot, e) -> {
+            if (e != null) {
+                listener.onError(e);
+                return;
+            }
+            if (querySnapshot == null) {
+                return;
+            }
+            // 스냅샷 전체가 아니라 이번에 바뀐 문서만 넘긴다
+            List<DocumentChange> documentChanges = querySnapshot.getDocumentChanges();
+            if (documentChanges.isEmpty()) {
+                return;
+            }
+            List<RankEntry> upserted = new ArrayList<>(documentChanges.size());
+            for (DocumentChange change : documentChanges) {
+                if (change.getType() != DocumentChange.Type.REMOVED) {
+                    upserted.add(toEntry(change.getDocument()));
+                }
+            }
+            // 변경은 순서가 중요하므로 이름을 채우는 동안 온 다음 변경은 앞의 전달 뒤에 잇는다
+            delivered.set(delivered.get()
+                    .thenCompose(ignored -> profileNames.withNames(upserted, parseExecutor))
+                    .thenAccept(named -> {
+                        List<RankChange> changes = new ArrayList<>(documentChanges.size());
+                        int next = 0;
+                        for (DocumentChange change : documentChanges) {
+                            if (change.getType() == DocumentChange.Type.REMOVED) {
+                                changes.add(RankChange.remove(change.getDocument().getId()));
+                            } else {
+                                changes.add(RankChange.upsert(named.get(next++)));
+                            }
+                        }
+                        listener.onChanges(changes);
+                    }));
+        });
+        return registration::remove;
+    }
+
+    /**
+     * 커서로 쓰는 랭킹 순서. 같은 점수는 문서 ID 순으로 끊어야 페이지 경계에서 겹치거나 빠지는 줄이 없다
+     * (복합 색인 s DESC, __name__ ASC. 저장소 루트의 firestore.indexes.json 을
+     * firebase deploy --only firestore:indexes 로 올린다. 기간별 칸도 컬렉션 ID 가 rankings 라 같은 색인을 쓴다).
+     */
+    private Query rankOrder() {
+        return rankings.orderBy(RankingSchema.FIELD_COMPACT_SCORE, Query.Direction.DESCENDING)
+                .orderBy(FieldPath.documentId());
+    }
+
+    /**
+     * 첫 페이지도 커서 페이지와 같은 순서여야 같은 점수가 경계에서 겹치거나 빠지지 않는다.
+     */
+    private Query topQuery(int n) {
+        return rankOrder().limit(n);
+    }
+
+    /**
+     * 기록 하나. 2 판 기록이면 이름은 null 이고 toNamedEntries 가 채운다.
+     */
+    static RankEntry toEntry(DocumentSnapshot document) {
+        Map<String, Object> fields = document.getData();
+        Integer score = RankingRecordCodec.scoreOf(fields);
+        return new RankEntry(document.getId(), RankingRecordCodec.legacyNameOf(fields),
+                score != null ? score : 0);
+    }
+
+    private CompletableFuture<List<RankEntry>> toNamedEntries(QuerySnapshot querySnapshot) {
+        return profileNames.withNames(toEntries(querySnapshot), parseExecutor);
+    }
+
+    private static List<RankEntry> toEntries(QuerySnapshot querySnapshot) {
+        List<RankEntry> entries = new ArrayList<>(querySnapshot.size());
+        for (DocumentSnapshot document : querySnapshot.getDocuments()) {
+            entries.add(toEntry(document));
+        }
+        return entries;
+    }
+
+    /**
+     * 전체 기간 저장소. 점수 분포 샤드도 읽는다.
+     */
+    private static final class AllTime extends FirestoreRankingRepository implements AllTimeRankingRepository {
+
+        private final CollectionReference histogramShards;
+
+        AllTime(FirebaseFirestore db, ProfileNames profileNames, Executor parseExecutor) {
+            super(db, db.collection(RankingSchema.COLLECTION_RANKINGS),
+                    db.collection(RankingSchema.COLLECTION_STATS).document(RankingSchema.DOC_TOP), profileNames,
+                    parseExecutor);
+            this.histogramShards = db.collection(RankingSchema.COLLECTION_STATS)
+                    .document(RankingSchema.DOC_HISTOGRAM).collection(RankingSchema.COLLECTION_SHARDS);
+        }
+
+        @Override
+        public CompletableFuture<ScoreHistogram> histogram() {
+            // 샤드 문서 HISTOGRAM_SHARDS 개를 쿼리 한 번으로 읽어 합친다
+            return TaskFutures.toFuture(histogramShards.get(), parseExecutor).thenApply(querySnapshot -> {
+                List<Map<String, Number>> shards = new ArrayList<>(querySnapshot.size());
+                for (DocumentSnapshot shard : querySnapshot.getDocuments()) {
+                    Object buckets = shard.get(RankingSchema.FIELD_BUCKETS);
+                    if (buckets instanceof Map) {
+                        @SuppressWarnings("unchecked")
+                        Map<String, Number> counts = (Map<String, Number>) buckets;
+                        shards.add(counts);
+                    }
+                }
+                return ScoreHistogram.fromShards(shards);
+            });
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.cookandroid.findcolorgame;
+
+import com.cookandroid.findcolorgame.core.ranking.PendingScore;
+import com.cookandroid.findcolorgame.core.ranking.ScoreBackend;
+import com.cookandroid.findcolorgame.core.ranking.ScoreWritePlan;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.Transaction;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 모아 둔 점수를 트랜잭션 하나로 쓴다. 점수 하나는 전체 기간 rankings/{uid} 와 그날/그 주의
+ * leaderboards/{bucket}/rankings/{uid} 에 함께 들어가고, 문서마다 서버 값보다 클 때만 바꾼다.
+ * 같은 트랜잭션에서 점수 분포 샤드와, 이름이 바뀌었으면 profiles/{uid} 도 고친다.
+ * 기록은 2 판({v, s})으로 쓰고 1 판 기록을 만나면 점수가 같아도 2 판으로 바꿔 쓴다.
+ * ScoreUploader 의 백그라운드 스레드에서 불린다.
+ */
+public class FirestoreScoreBackend implements ScoreBackend {
+
+    private static final long TIMEOUT_SECONDS = 30;
+
+    private final FirebaseFirestore db;
+
+    public FirestoreScoreBackend(FirebaseFirestore db) {
+        this.db = db;
+    }
+
+    @Override
+    public void writeBatch(List<PendingScore> scores) throws IOException {
+        try {
+            Tasks.await(db.runTransaction(transaction -> {
+                writeScores(db, transaction, scores);
+                return null;
+            }), TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IOException("Ranking batch write failed", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Ranking batch write interrupted", e);
+        }
+    }
+
+    /**
+     * 트랜잭션 안에서 점수들을 모든 기간의 문서에 쓴다. 무엇을 쓸지는 core 의 ScoreWritePlan 이 정하고
+     * 여기서는 경로를 읽고 쓰기만 한다. 문서마다 한 번만 읽고 한 번만 쓴다.
+     */
+    static void writeScores(FirebaseFirestore db, Transaction transaction, Collection<PendingScore> scores)
+            throws FirebaseFirestoreException {
+        ScoreWritePlan plan = ScoreWritePlan.forBatch(scores);
+        Map<String, Map<String, Object>> current = new HashMap<>();
+        for (String path : plan.readPaths()) {
+            current.put(path, transaction.get(db.document(path)).getData());
+        }
+        plan.resolve(current);
+        for (Map.Entry<String, Map<String, Object>> set : plan.sets().entrySet()) {
+            transaction.set(db.document(set.getKey()), set.getValue());
+        }
+        for (Map.Entry<String, Map<String, Long>> shard : plan.shardDeltas().entrySet()) {
+            transaction.set(db.document(shard.getKey()),
+                    ScoreWritePlan.bucketIncrements(shard.getValue(), FieldValue::increment), SetOptions.merge());
+        }
+    }
+}
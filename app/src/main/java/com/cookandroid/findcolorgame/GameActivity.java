@@ -4,201 +4,174 @@ import android.app.AlertDialog;
 import android.content.Intent;
 import android.graphics.Color;
 import android.os.Bundle;
-import android.os.CountDownTimer;
-import android.os.Handler;
-import android.util.Log;
-import android.view.View;
-import android.widget.GridLayout;
 import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.lifecycle.ViewModelProvider;
 
+import com.cookandroid.findcolorgame.core.GameEngine;
+import com.cookandroid.findcolorgame.core.Stage;
+import com.cookandroid.findcolorgame.core.TileBuffers;
+import com.cookandroid.findcolorgame.core.ranking.AllTimeRankingRepository;
+import com.cookandroid.findcolorgame.core.ranking.PendingScore;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
-import com.google.firebase.firestore.DocumentReference;
-import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.SetOptions;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Random;
+import java.util.Arrays;
 
 public class GameActivity extends AppCompatActivity {
 
-    private static final int INITIAL_GRID_SIZE = 4;
     private static final long TIME_LIMIT = 15000; // 15 seconds
     private static final int TILE_SPACING = 8; // Spacing between tiles
 
-    private GridLayout tileGrid;
+    private TileBoardView tileBoard;
     private TextView timerTextView, stageTextView;
 
-    private int currentStage = 1;
-    private int gridSize = INITIAL_GRID_SIZE;
+    // 화면 회전/프로세스 종료에도 유지되는 세션
+    private GameViewModel viewModel;
+    // 스테이지 진행과 보드 생성은 GameEngine 이 맡고, 이 화면은 결과만 그린다
+    private GameEngine gameEngine;
 
-    private CountDownTimer timer;
-    private int differentTileIndex; // 정답 타일 인덱스 저장
+    // 시계와 예약된 콜백을 생명주기에 맞춰 멈추고/이어가고/취소한다
+    private GameSession gameSession;
+    private int[] tileColors = new int[0]; // 시간 초과 시 하이라이트용 색상 버퍼
 
     // Fire Base에서 사용자 정보를 가져옴
     private FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
-    // 파이어 베이스 저장소
-    private FirebaseFirestore db = FirebaseFirestore.getInstance();
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_game);
 
-        tileGrid = findViewById(R.id.tileGrid);
+        tileBoard = findViewById(R.id.tileBoard);
         timerTextView = findViewById(R.id.timerTextView);
         stageTextView = findViewById(R.id.stageTextView);
 
+        viewModel = new ViewModelProvider(this).get(GameViewModel.class);
+        gameEngine = viewModel.getGameEngine();
+
         if (user != null) {
             String uid = user.getUid(); // 고유 사용자 ID
             String email = user.getEmail(); // 사용자 이메일
             String displayName = user.getDisplayName(); // 사용자 표시 이름
         }
 
-        tileGrid.post(() -> startGame()); // Ensure layout is measured before starting
+        gameSession = new GameSession(this, new GameClock.Listener() {
+            @Override
+            public void onSecondsChanged(int secondsLeft) {
+                timerTextView.setText(String.valueOf(secondsLeft));
+            }
+
+            @Override
+            public void onTimeUp() {
+                GameActivity.this.onTimeUp();
+            }
+        });
+
+        tileBoard.setOnTileClickListener(this::onTileClicked);
+        // Ensure layout is measured before starting
+        tileBoard.post(() -> {
+            if (viewModel.hasSession()) {
+                resumeGame(); // 회전 또는 프로세스 종료 후 이어서 하기
+            } else {
+                startGame();
+            }
+        });
+
+    }
 
+    @Override
+    protected void onPause() {
+        super.onPause();
+        if (viewModel.hasSession()) {
+            viewModel.onPaused(gameSession.getClock().getRemainingMillis());
+        }
     }
 
     private void startGame() {
-        stageTextView.setText("Stage: " + currentStage);
+        stageTextView.setText("Stage: " + gameEngine.getCurrentStage());
         setupGrid();
+        viewModel.onStageStarted(TIME_LIMIT);
         resetTimer();
     }
 
-    private void setupGrid() {
-        tileGrid.removeAllViews();
-        tileGrid.setColumnCount(gridSize);
-        tileGrid.setRowCount(gridSize);
-
-        // Calculate the available width and height for tiles
-        int availableWidth = tileGrid.getWidth() - TILE_SPACING * (gridSize + 1);
-        int availableHeight = tileGrid.getHeight() - TILE_SPACING * (gridSize + 1);
-
-        // Calculate the size of each tile to ensure they are square and fit within the layout
-        int tileSize = Math.min(availableWidth, availableHeight) / gridSize;
-
-        if (tileSize <= 0) {
-            gridSize--; // Reduce grid size if tiles exceed layout bounds
-            startGame();
+    /**
+     * 저장된 세션을 새로 만들지 않고 그대로 다시 그린다.
+     */
+    private void resumeGame() {
+        stageTextView.setText("Stage: " + gameEngine.getCurrentStage());
+        float density = getResources().getDisplayMetrics().density;
+        if (!gameEngine.relayout(tileBoard.getWidth(), tileBoard.getHeight(), density, TILE_SPACING)) {
             return;
         }
-
-        int totalTiles = gridSize * gridSize;
-        Random random = new Random();
-
-        // Ensure the correct tile is not assigned to an overflowing position
-        do {
-            differentTileIndex = random.nextInt(totalTiles);
-        } while (isTileOverflowing(differentTileIndex, tileSize));
-
-        int baseColor = generateRandomColor();
-        int differentColor = darkenColor(baseColor);
-
-        for (int i = 0; i < totalTiles; i++) {
-            View tile = new View(this);
-            GridLayout.LayoutParams params = new GridLayout.LayoutParams();
-            params.width = tileSize;
-            params.height = tileSize;
-            params.setMargins(TILE_SPACING / 2, TILE_SPACING / 2, TILE_SPACING / 2, TILE_SPACING / 2);
-            tile.setLayoutParams(params);
-
-            if (i == differentTileIndex) {
-                tile.setBackgroundColor(differentColor); // Different color tile
-                tile.setOnClickListener(v -> {
-                    timer.cancel();
-                    onCorrectTileClicked();
-                });
-            } else {
-                tile.setBackgroundColor(baseColor); // Normal tile
-                tile.setOnClickListener(v -> Toast.makeText(this, "Try again!", Toast.LENGTH_SHORT).show());
-            }
-            tileGrid.addView(tile);
+        drawStage();
+
+        long remainingMillis = viewModel.getRemainingMillis();
+        if (remainingMillis > 0) {
+            gameSession.startClock(remainingMillis);
+        } else {
+            timerTextView.setText("0");
+            onTimeUp();
         }
     }
 
-    private boolean isTileOverflowing(int tileIndex, int tileSize) {
-        int row = tileIndex / gridSize;
-        int col = tileIndex % gridSize;
-
-        // Calculate the position of the tile
-        int leftEdge = col * (tileSize + TILE_SPACING);
-        int topEdge = row * (tileSize + TILE_SPACING);
-        int rightEdge = leftEdge + tileSize;
-        int bottomEdge = topEdge + tileSize;
+    private void setupGrid() {
+        float density = getResources().getDisplayMetrics().density;
+        if (!gameEngine.buildStage(tileBoard.getWidth(), tileBoard.getHeight(), density, TILE_SPACING)) {
+            return; // 보드가 측정되지 않았거나 너무 작음
+        }
+        drawStage();
+    }
 
-        // Check if the tile exceeds the layout bounds
-        return rightEdge > tileGrid.getWidth() || bottomEdge > tileGrid.getHeight();
+    private void drawStage() {
+        Stage stage = gameEngine.getStage();
+        tileBoard.setBoard(stage.getGridSize(), stage.getTileSize(), TILE_SPACING, stage.getColors());
     }
 
-    private void resetTimer() {
-        if (timer != null) {
-            timer.cancel();
+    private void onTileClicked(int tileIndex) {
+        if (gameEngine.isOddTile(tileIndex)) {
+            gameSession.stopClock();
+            onCorrectTileClicked();
+        } else {
+            Toast.makeText(this, "Try again!", Toast.LENGTH_SHORT).show();
         }
-        timer = new CountDownTimer(TIME_LIMIT, 1000) {
-            @Override
-            public void onTick(long millisUntilFinished) {
-                timerTextView.setText(String.valueOf(millisUntilFinished / 1000));
-            }
+    }
 
-            @Override
-            public void onFinish() {
-                onTimeUp();
-            }
-        }.start();
+    private void resetTimer() {
+        gameSession.startClock(TIME_LIMIT);
     }
 
     private void onCorrectTileClicked() {
-        currentStage++;
-        gridSize++;
+        gameEngine.advance();
         startGame();
     }
 
     private void onTimeUp() {
-        for (int i = 0; i < tileGrid.getChildCount(); i++) {
-            View tile = tileGrid.getChildAt(i);
-            if (i == differentTileIndex) {
-                tile.setBackgroundColor(Color.GREEN); // Highlight the correct tile
-            } else {
-                tile.setBackgroundColor(Color.GRAY); // Dim all other tiles
-            }
-        }
-
-        new Handler().postDelayed(this::showRetryDialog, 3000); // Delay for 3 seconds before showing dialog
+        Stage stage = gameEngine.getStage();
+        int totalTiles = stage.getTotalTiles();
+        tileColors = TileBuffers.ensureCapacity(tileColors, totalTiles);
+        Arrays.fill(tileColors, 0, totalTiles, Color.GRAY); // Dim all other tiles
+        tileColors[stage.getOddIndex()] = Color.GREEN; // Highlight the correct tile
+        tileBoard.setTileColors(tileColors);
+
+        gameSession.postDelayed(this::showRetryDialog, 3000); // Delay for 3 seconds before showing dialog
     }
 
     private void showRetryDialog() {
+        int score = gameEngine.getCurrentStage();
         if (user != null) {
-            String uid = user.getUid();
-            int userScore = currentStage;
-
-            Map<String, Object> userData = new HashMap<>();
-            userData.put("key",uid);
-            userData.put("score", userScore);
-            userData.put("name", user.getDisplayName());
-
-            DocumentReference totalRankingDocRef = db.collection("ranking").document("totalRanking");
-
-            Map<String, Object> entriesUpdate = new HashMap<>();
-            entriesUpdate.put(uid, userData); // 사용자 ID를 키로 하는 맵 생성
-
-            totalRankingDocRef.set(new HashMap<String, Object>() {{ // 빈 Map으로 시작
-                put("entries", entriesUpdate);
-            }}, SetOptions.merge()).addOnSuccessListener(aVoid -> {
-                Log.d("Firestore", "Ranking successfully written!");
-            }).addOnFailureListener(e -> {
-                Log.w("Firestore", "Error writing ranking", e);
-            });
+            // 백그라운드에서 랭킹과 Play 게임즈로 보낸다. 창은 기다리지 않는다
+            RankingServices.get(this).getScorePipeline().submit(new PendingScore(viewModel.getGameId(),
+                    user.getUid(), user.getDisplayName(), score, System.currentTimeMillis()));
         }
-        new AlertDialog.Builder(this)
+        AlertDialog retryDialog = new AlertDialog.Builder(this)
                 .setTitle("게임 종료")
                 .setMessage("다시 하겠습니까?")
                 .setPositiveButton("다시 하기", (dialog, which) -> {
-                    currentStage = 1;
-                    gridSize = INITIAL_GRID_SIZE;
+                    gameEngine.reset();
+                    viewModel.startNewGame();
                     startGame();
                 })
                 .setNegativeButton("종료", (dialog, which) -> {
@@ -208,20 +181,21 @@ public class GameActivity extends AppCompatActivity {
                 })
                 .setCancelable(false)
                 .show();
-    }
 
-    private int generateRandomColor() {
-        Random random = new Random();
-        int red = random.nextInt(156) + 100; // Bright colors
-        int green = random.nextInt(156) + 100;
-        int blue = random.nextInt(156) + 100;
-        return Color.rgb(red, green, blue);
-    }
-
-    private int darkenColor(int color) {
-        int red = (int) (Color.red(color) * 0.8); // 20% darker
-        int green = (int) (Color.green(color) * 0.8);
-        int blue = (int) (Color.blue(color) * 0.8);
-        return Color.rgb(red, green, blue);
+        if (user != null) {
+            // 창은 먼저 띄우고, 서버의 내 기록과 점수 분포 문서가 오면 내 순위를 덧붙인다
+            // 방금 점수는 아직 기록 전일 수 있다
+            AllTimeRankingRepository repository = RankingServices.get(this).getRankingRepository();
+            repository.entryOf(user.getUid()).thenCombine(repository.histogram(), (own, histogram) -> {
+                int best = own != null ? Math.max(score, own.getScore()) : score;
+                String standing = RankActivity.describeStanding(histogram, best);
+                runOnUiThread(() -> {
+                    if (retryDialog.isShowing()) {
+                        retryDialog.setMessage("내 순위: " + standing + "\n다시 하겠습니까?");
+                    }
+                });
+                return null;
+            });
+        }
     }
 }
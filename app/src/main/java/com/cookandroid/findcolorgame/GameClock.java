@@ -0,0 +1,131 @@
+package com.cookandroid.findcolorgame;
+
+import android.view.Choreographer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 화면 프레임마다 남은 시간을 줄이는 게임 시계.
+ * 남은 시간은 나노초 단위 long 으로 관리하고, 화면에 보이는 초 값이 바뀔 때만 리스너를 부른다.
+ * 메인 스레드에서만 사용해야 한다.
+ */
+public class GameClock implements Choreographer.FrameCallback {
+
+    public interface Listener {
+        /** 화면에 표시할 남은 초가 바뀌었을 때. */
+        void onSecondsChanged(int secondsLeft);
+
+        void onTimeUp();
+    }
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final Choreographer choreographer = Choreographer.getInstance();
+    private final Listener listener;
+
+    private long remainingNanos;
+    private long lastFrameNanos;
+    private int displayedSeconds = -1;
+    private boolean running;
+    private boolean paused;
+
+    public GameClock(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * 처음부터 다시 센다. 이미 돌고 있으면 이어서 쓰지 않고 새로 시작한다.
+     */
+    public void start(long durationMillis) {
+        choreographer.removeFrameCallback(this);
+        remainingNanos = TimeUnit.MILLISECONDS.toNanos(durationMillis);
+        lastFrameNanos = System.nanoTime();
+        displayedSeconds = -1;
+        paused = false;
+        running = true;
+        publishSeconds();
+        choreographer.postFrameCallback(this);
+    }
+
+    public void cancel() {
+        choreographer.removeFrameCallback(this);
+        running = false;
+        paused = false;
+    }
+
+    /**
+     * 남은 시간을 지금 시점까지 반영하고 멈춘다.
+     */
+    public void pause() {
+        if (!running) {
+            return;
+        }
+        choreographer.removeFrameCallback(this);
+        consume(System.nanoTime());
+        running = false;
+        paused = true;
+    }
+
+    /**
+     * pause() 로 멈춘 시계를 남은 시간 그대로 다시 돌린다.
+     */
+    public void resume() {
+        if (!paused) {
+            return;
+        }
+        paused = false;
+        running = true;
+        lastFrameNanos = System.nanoTime();
+        choreographer.postFrameCallback(this);
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    public long getRemainingNanos() {
+        return remainingNanos;
+    }
+
+    public long getRemainingMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(remainingNanos);
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (!running) {
+            return;
+        }
+        consume(frameTimeNanos);
+
+        if (remainingNanos <= 0) {
+            remainingNanos = 0;
+            running = false;
+            publishSeconds();
+            listener.onTimeUp();
+            return;
+        }
+        publishSeconds();
+        choreographer.postFrameCallback(this);
+    }
+
+    private void consume(long nowNanos) {
+        long elapsed = nowNanos - lastFrameNanos;
+        if (elapsed > 0) { // 시작 직후의 프레임 시각은 시작 시각보다 이를 수 있다
+            remainingNanos -= elapsed;
+            lastFrameNanos = nowNanos;
+        }
+    }
+
+    private void publishSeconds() {
+        int seconds = (int) (Math.max(remainingNanos, 0) / NANOS_PER_SECOND);
+        if (seconds != displayedSeconds) {
+            displayedSeconds = seconds;
+            listener.onSecondsChanged(seconds);
+        }
+    }
+}
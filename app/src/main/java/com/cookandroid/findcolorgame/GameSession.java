@@ -0,0 +1,110 @@
+package com.cookandroid.findcolorgame;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.DefaultLifecycleObserver;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleOwner;
+
+/**
+ * 진행 중인 게임의 시계와 예약된 콜백을 화면 생명주기에 맞춰 관리한다.
+ * onPause 에서 시계와 콜백을 남은 시간 그대로 멈추고, onResume 에서 이어서 돌리며,
+ * onDestroy 에서 모두 취소해 백그라운드에서 CPU 를 쓰거나 액티비티를 붙잡고 있지 않게 한다.
+ */
+public class GameSession implements DefaultLifecycleObserver {
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final GameClock gameClock;
+    private Lifecycle lifecycle;
+
+    private Runnable pendingAction;
+    private long pendingRemainingMillis;
+    private long pendingPostedAtMillis;
+    private final Runnable pendingRunner = () -> {
+        Runnable action = pendingAction;
+        pendingAction = null;
+        if (action != null) {
+            action.run();
+        }
+    };
+
+    public GameSession(LifecycleOwner owner, GameClock.Listener clockListener) {
+        gameClock = new GameClock(clockListener);
+        lifecycle = owner.getLifecycle();
+        lifecycle.addObserver(this);
+    }
+
+    public void startClock(long durationMillis) {
+        gameClock.start(durationMillis);
+        if (!isResumed()) {
+            gameClock.pause(); // 화면이 보일 때부터 센다
+        }
+    }
+
+    public void stopClock() {
+        gameClock.cancel();
+    }
+
+    public GameClock getClock() {
+        return gameClock;
+    }
+
+    /**
+     * 화면이 보이는 동안의 시간으로 delayMillis 가 지나면 action 을 실행한다.
+     * 예약은 하나만 유지하며, 새로 예약하면 이전 예약은 취소된다.
+     */
+    public void postDelayed(Runnable action, long delayMillis) {
+        cancelPending();
+        pendingAction = action;
+        pendingRemainingMillis = delayMillis;
+        if (isResumed()) {
+            schedulePending();
+        }
+    }
+
+    public void cancelPending() {
+        handler.removeCallbacks(pendingRunner);
+        pendingAction = null;
+    }
+
+    @Override
+    public void onResume(@NonNull LifecycleOwner owner) {
+        gameClock.resume();
+        if (pendingAction != null) {
+            schedulePending();
+        }
+    }
+
+    @Override
+    public void onPause(@NonNull LifecycleOwner owner) {
+        gameClock.pause();
+        if (pendingAction != null) {
+            handler.removeCallbacks(pendingRunner);
+            long elapsed = SystemClock.uptimeMillis() - pendingPostedAtMillis;
+            pendingRemainingMillis = Math.max(0, pendingRemainingMillis - elapsed);
+        }
+    }
+
+    @Override
+    public void onDestroy(@NonNull LifecycleOwner owner) {
+        gameClock.cancel();
+        cancelPending();
+        handler.removeCallbacksAndMessages(null);
+        if (lifecycle != null) {
+            lifecycle.removeObserver(this);
+            lifecycle = null;
+        }
+    }
+
+    private void schedulePending() {
+        pendingPostedAtMillis = SystemClock.uptimeMillis();
+        handler.postDelayed(pendingRunner, pendingRemainingMillis);
+    }
+
+    private boolean isResumed() {
+        return lifecycle != null && lifecycle.getCurrentState().isAtLeast(Lifecycle.State.RESUMED);
+    }
+}
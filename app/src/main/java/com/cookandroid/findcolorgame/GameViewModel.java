@@ -0,0 +1,116 @@
+package com.cookandroid.findcolorgame;
+
+import androidx.lifecycle.SavedStateHandle;
+import androidx.lifecycle.ViewModel;
+
+import com.cookandroid.findcolorgame.core.GameEngine;
+import com.cookandroid.findcolorgame.core.GridFitSolver;
+import com.cookandroid.findcolorgame.core.Stage;
+import com.cookandroid.findcolorgame.core.StageGenerator;
+
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 화면 회전에도 살아남는 게임 세션.
+ * 회전 시에는 GameEngine 을 그대로 넘겨 주고, 프로세스 종료 후에는 SavedStateHandle 의
+ * SessionState 로 같은 보드를 되살린다.
+ */
+public class GameViewModel extends ViewModel {
+
+    private static final String KEY_SESSION = "session";
+    private static final String KEY_GAME_ID = "gameId";
+
+    private final SavedStateHandle savedStateHandle;
+    // 다음 스테이지 보드를 미리 만드는 백그라운드 스레드
+    private final ExecutorService prefetchExecutor = Executors.newSingleThreadExecutor();
+    private final GameEngine gameEngine;
+    private final long seed;
+
+    private long remainingMillis;
+    private boolean sessionStarted;
+
+    public GameViewModel(SavedStateHandle savedStateHandle) {
+        this.savedStateHandle = savedStateHandle;
+
+        SessionState saved = savedStateHandle.get(KEY_SESSION);
+        seed = saved != null ? saved.seed : System.nanoTime();
+        // 같은 시드로 계속 만들면 되살린 뒤 이미 본 보드가 반복되므로 스테이지 번호를 섞는다
+        long generatorSeed = saved != null ? seed ^ saved.stage : seed;
+        gameEngine = new GameEngine(new StageGenerator(new Random(generatorSeed)), GridFitSolver.shared(),
+                prefetchExecutor);
+
+        if (saved != null) {
+            gameEngine.restore(saved.stage, saved.gridSize, saved.oddIndex, saved.baseColor);
+            remainingMillis = saved.remainingMillis;
+            sessionStarted = true;
+        }
+    }
+
+    /**
+     * 지금 게임의 식별자. 회전이나 프로세스 종료 후에도 같아서, 같은 게임 종료가 두 번 올라가지 않는다.
+     */
+    public String getGameId() {
+        String gameId = savedStateHandle.get(KEY_GAME_ID);
+        if (gameId == null) {
+            gameId = UUID.randomUUID().toString();
+            savedStateHandle.set(KEY_GAME_ID, gameId);
+        }
+        return gameId;
+    }
+
+    /**
+     * 다시 하기로 새 게임을 시작할 때.
+     */
+    public void startNewGame() {
+        savedStateHandle.set(KEY_GAME_ID, UUID.randomUUID().toString());
+    }
+
+    public GameEngine getGameEngine() {
+        return gameEngine;
+    }
+
+    /**
+     * 이어서 할 게임이 있는지 (화면 회전 또는 프로세스 종료 후 복원).
+     */
+    public boolean hasSession() {
+        return sessionStarted;
+    }
+
+    public long getRemainingMillis() {
+        return remainingMillis;
+    }
+
+    /**
+     * 새 스테이지가 화면에 올라갔을 때.
+     */
+    public void onStageStarted(long timeLimitMillis) {
+        sessionStarted = true;
+        remainingMillis = timeLimitMillis;
+        save();
+    }
+
+    /**
+     * 화면을 떠날 때 남은 시간을 기록한다.
+     */
+    public void onPaused(long remainingMillis) {
+        this.remainingMillis = remainingMillis;
+        save();
+    }
+
+    private void save() {
+        Stage stage = gameEngine.getStage();
+        if (!gameEngine.hasStage()) {
+            return;
+        }
+        savedStateHandle.set(KEY_SESSION, new SessionState(gameEngine.getCurrentStage(), stage.getGridSize(), seed,
+                stage.getOddIndex(), stage.getBaseColor(), remainingMillis));
+    }
+
+    @Override
+    protected void onCleared() {
+        prefetchExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,74 @@
+package com.cookandroid.findcolorgame;
+
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.cookandroid.findcolorgame.core.ranking.RankChange;
+import com.cookandroid.findcolorgame.core.ranking.RankEntry;
+import com.cookandroid.findcolorgame.core.ranking.RankIndex;
+
+import java.util.List;
+
+/**
+ * 실시간 랭킹 어댑터. 받은 변경분을 RankIndex 에 적용하고, 색인이 알려 준 줄에만 notifyItem* 을 보낸다.
+ * 전체 목록을 다시 만들거나 diff 하지 않는다. UI 스레드에서만 쓴다.
+ */
+class LiveRankAdapter extends RecyclerView.Adapter<RankAdapter.RowHolder> implements RankIndex.Listener {
+
+    private final RankIndex index = new RankIndex();
+
+    void applyChanges(List<RankChange> changes) {
+        index.apply(changes, this);
+    }
+
+    void clear() {
+        int size = index.size();
+        index.clear();
+        notifyItemRangeRemoved(0, size);
+    }
+
+    @NonNull
+    @Override
+    public RankAdapter.RowHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        return RankAdapter.RowHolder.create(parent);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull RankAdapter.RowHolder holder, int position) {
+        RankEntry entry = index.get(position);
+        holder.bind(position + 1, entry.getName(), entry.getScore());
+    }
+
+    @Override
+    public int getItemCount() {
+        return index.size();
+    }
+
+    // 줄이 들어오거나 빠지면 그 아래 줄들의 순위 숫자도 바뀐다. 화면에 붙은 줄만 다시 bind 된다
+
+    @Override
+    public void onInserted(int position) {
+        notifyItemInserted(position);
+        notifyItemRangeChanged(position + 1, index.size() - position - 1);
+    }
+
+    @Override
+    public void onRemoved(int position) {
+        notifyItemRemoved(position);
+        notifyItemRangeChanged(position, index.size() - position);
+    }
+
+    @Override
+    public void onMoved(int fromPosition, int toPosition) {
+        notifyItemMoved(fromPosition, toPosition);
+        int start = Math.min(fromPosition, toPosition);
+        notifyItemRangeChanged(start, Math.abs(toPosition - fromPosition) + 1);
+    }
+
+    @Override
+    public void onChanged(int position) {
+        notifyItemChanged(position);
+    }
+}
@@ -0,0 +1,52 @@
+package com.cookandroid.findcolorgame;
+
+import android.content.Context;
+import android.text.TextUtils;
+import android.util.Log;
+
+import com.cookandroid.findcolorgame.core.ranking.PendingScore;
+import com.cookandroid.findcolorgame.core.ranking.ScorePipeline;
+import com.google.android.gms.auth.api.signin.GoogleSignIn;
+import com.google.android.gms.auth.api.signin.GoogleSignInAccount;
+import com.google.android.gms.games.Games;
+import com.google.android.gms.tasks.Tasks;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Play 게임즈 리더보드(R.string.leaderboard_id)에 점수를 올린다.
+ * 결과를 알아야 ScorePipeline 이 다시 시도할 수 있으므로 submitScore 대신 submitScoreImmediate 를 쓴다.
+ * 게임즈 권한으로 로그인하지 않았거나 리더보드 ID 가 비어 있으면 아무것도 하지 않는다.
+ */
+public class PlayGamesScoreSink implements ScorePipeline.Sink {
+
+    private static final String TAG = "PlayGamesScoreSink";
+    static final String NAME = "playGames";
+    private static final long TIMEOUT_SECONDS = 30;
+
+    private final Context appContext;
+    private final String leaderboardId;
+
+    public PlayGamesScoreSink(Context context) {
+        this.appContext = context.getApplicationContext();
+        this.leaderboardId = appContext.getString(R.string.leaderboard_id);
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public void send(PendingScore score) throws Exception {
+        GoogleSignInAccount account = GoogleSignIn.getLastSignedInAccount(appContext);
+        if (TextUtils.isEmpty(leaderboardId) || account == null
+                || !GoogleSignIn.hasPermissions(account, Games.SCOPE_GAMES_LITE)) {
+            Log.d(TAG, "Skip Play Games submit, not signed in or no leaderboard configured");
+            return;
+        }
+        Tasks.await(Games.getLeaderboardsClient(appContext, account)
+                        .submitScoreImmediate(leaderboardId, score.getScore()),
+                TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+}
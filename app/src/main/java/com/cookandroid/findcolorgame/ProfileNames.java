@@ -0,0 +1,111 @@
+package com.cookandroid.findcolorgame;
+
+import android.util.Log;
+
+import com.cookandroid.findcolorgame.core.ranking.RankEntry;
+import com.cookandroid.findcolorgame.core.ranking.RankingRecordCodec;
+import com.cookandroid.findcolorgame.core.ranking.RankingSchema;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FirebaseFirestore;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * 2 판 랭킹 기록에는 이름이 없으므로 profiles/{uid} 에서 채운다.
+ * 상위 목록 문서에 든 이름과 한 번 읽은 프로필은 기억해 두고, 처음 보는 uid 만 모아서 읽는다.
+ */
+final class ProfileNames {
+
+    private static final String TAG = "ProfileNames";
+    private static final int MAX_CACHED = 1000;
+    // whereIn 에 넣을 수 있는 값 수
+    private static final int IN_QUERY_LIMIT = 10;
+    private static final String MISSING = ""; // 프로필이 없는 uid 를 다시 읽지 않도록
+
+    private final CollectionReference profiles;
+    private final Map<String, String> names = new LinkedHashMap<String, String>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > MAX_CACHED;
+        }
+    };
+
+    ProfileNames(FirebaseFirestore db) {
+        this.profiles = db.collection(RankingSchema.COLLECTION_PROFILES);
+    }
+
+    /**
+     * 이미 이름이 있는 줄(상위 목록 문서, 1 판 기록)에서 이름을 배운다.
+     */
+    void remember(Collection<RankEntry> entries) {
+        synchronized (names) {
+            for (RankEntry entry : entries) {
+                if (entry.getName() != null) {
+                    names.put(entry.getUid(), entry.getName());
+                }
+            }
+        }
+    }
+
+    /**
+     * 이름이 빈 줄을 채운 목록. 프로필을 읽지 못하면 이름 없이 그대로 돌려주므로 실패하지 않는다.
+     */
+    CompletableFuture<List<RankEntry>> withNames(List<RankEntry> entries, Executor executor) {
+        remember(entries);
+        Set<String> unknown = new LinkedHashSet<>();
+        synchronized (names) {
+            for (RankEntry entry : entries) {
+                if (entry.getName() == null && !names.containsKey(entry.getUid())) {
+                    unknown.add(entry.getUid());
+                }
+            }
+        }
+        if (unknown.isEmpty()) {
+            return CompletableFuture.completedFuture(fill(entries));
+        }
+
+        List<String> uids = new ArrayList<>(unknown);
+        List<CompletableFuture<Void>> reads = new ArrayList<>();
+        for (int from = 0; from < uids.size(); from += IN_QUERY_LIMIT) {
+            List<String> chunk = uids.subList(from, Math.min(uids.size(), from + IN_QUERY_LIMIT));
+            reads.add(TaskFutures.toFuture(profiles.whereIn(FieldPath.documentId(), new ArrayList<>(chunk)).get(),
+                    executor).thenAccept(querySnapshot -> {
+                synchronized (names) {
+                    for (String uid : chunk) {
+                        names.put(uid, MISSING);
+                    }
+                    for (DocumentSnapshot profile : querySnapshot.getDocuments()) {
+                        String name = RankingRecordCodec.profileNameOf(profile.getData());
+                        names.put(profile.getId(), name != null ? name : MISSING);
+                    }
+                }
+            }).exceptionally(e -> {
+                Log.w(TAG, "Profile read failed, showing rows without names", e);
+                return null;
+            }));
+        }
+        return CompletableFuture.allOf(reads.toArray(new CompletableFuture[0])).thenApply(ignored -> fill(entries));
+    }
+
+    private List<RankEntry> fill(List<RankEntry> entries) {
+        List<RankEntry> filled = new ArrayList<>(entries.size());
+        synchronized (names) {
+            for (RankEntry entry : entries) {
+                String name = entry.getName() != null ? entry.getName() : names.get(entry.getUid());
+                filled.add(name == null || name.equals(entry.getName()) ? entry
+                        : new RankEntry(entry.getUid(), name.isEmpty() ? null : name, entry.getScore()));
+            }
+        }
+        return filled;
+    }
+}
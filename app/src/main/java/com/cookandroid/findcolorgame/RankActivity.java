@@ -6,25 +6,62 @@ import android.content.Intent;
 import android.os.Bundle;
 import android.util.Log;
 import android.view.View;
-import android.widget.ArrayAdapter;
+import android.widget.AdapterView;
 import android.widget.Button;
-import android.widget.ListView;
+import android.widget.Spinner;
+import android.widget.TextView;
 
+import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.appcompat.widget.SwitchCompat;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 
-import com.google.firebase.firestore.DocumentReference;
-import com.google.firebase.firestore.FirebaseFirestore;
+import com.cookandroid.findcolorgame.core.ranking.AllTimeRankingRepository;
+import com.cookandroid.findcolorgame.core.ranking.LeaderboardCache;
+import com.cookandroid.findcolorgame.core.ranking.LeaderboardWindow;
+import com.cookandroid.findcolorgame.core.ranking.Neighborhood;
+import com.cookandroid.findcolorgame.core.ranking.RankChange;
+import com.cookandroid.findcolorgame.core.ranking.RankEntry;
+import com.cookandroid.findcolorgame.core.ranking.RankTable;
+import com.cookandroid.findcolorgame.core.ranking.RankingRepository;
+import com.cookandroid.findcolorgame.core.ranking.RankingSchema;
+import com.cookandroid.findcolorgame.core.ranking.ScoreHistogram;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
 
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 public class RankActivity extends AppCompatActivity {
 
-    private FirebaseFirestore db;
-    private ListView listView;
-    private ArrayAdapter<String> adapter;
-    private List<String> rankingList;
+    private static final String CACHE_KEY_TOP = "top";
+    private static final int PREFETCH_DISTANCE = 5; // 끝에서 이만큼 남으면 다음 페이지를 읽는다
+
+    private RankingServices services;
+    private AllTimeRankingRepository allTimeRepository; // 내 순위와 내 주변은 늘 전체 기간으로 본다
+    private RankingRepository rankingRepository; // 고른 기간의 칸만 읽는다
+    private LeaderboardWindow window = LeaderboardWindow.ALL_TIME;
+    private CompletableFuture<ScoreHistogram> histogramLoad; // 화면마다 한 번 읽어 목록, 내 순위, 내 주변이 같이 쓴다
+    private LeaderboardCache leaderboardCache;
+    private Executor readExecutor;
+    private RecyclerView listView;
+    private LinearLayoutManager layoutManager;
+    private RankAdapter adapter;
+    private LiveRankAdapter liveAdapter;
+    private SwitchCompat liveSwitch;
+    private RankingRepository.Registration liveRegistration;
+    private int liveSession; // 구독을 다시 하면 늘려서 이전 구독의 늦은 변경을 버린다
+
+    // 아래 상태는 UI 스레드에서만 건드린다. 표는 백그라운드에서 다 만든 뒤에 바꿔 끼운다
+    private RankTable table = RankTable.EMPTY;
+    private RankEntry cursor; // 서버가 마지막으로 준 페이지의 마지막 줄. 표는 겹친 줄을 빼고 합치므로 표의 마지막 줄과 다를 수 있다
+    private boolean loading;
+    private boolean endReached;
+    private ScoreHistogram histogram; // 전체 기간 점수 분포. 받기 전에는 null
+    private int generation; // 첫 페이지를 다시 받으면 늘려서 이전 요청의 응답을 버린다
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -32,13 +69,64 @@ public class RankActivity extends AppCompatActivity {
         setContentView(R.layout.activity_rank);
 
         Button exitButton = findViewById(R.id.exitButton);
-        db = FirebaseFirestore.getInstance();
+        services = RankingServices.get(this);
+        allTimeRepository = services.getRankingRepository();
+        rankingRepository = allTimeRepository;
+        leaderboardCache = services.getLeaderboardCache();
+        readExecutor = services.getReadExecutor();
         listView = findViewById(R.id.list_item);
-        rankingList = new ArrayList<>();
-        adapter = new ArrayAdapter<>(this, android.R.layout.simple_list_item_1, rankingList);
+        layoutManager = new LinearLayoutManager(this);
+        adapter = new RankAdapter();
+        liveAdapter = new LiveRankAdapter();
+        liveSwitch = findViewById(R.id.liveSwitch);
+        listView.setLayoutManager(layoutManager);
         listView.setAdapter(adapter);
+        listView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                if (liveRegistration == null
+                        && layoutManager.findLastVisibleItemPosition() >= adapter.getItemCount() - PREFETCH_DISTANCE) {
+                    loadNextPage();
+                }
+            }
+        });
 
+        histogramLoad = allTimeRepository.histogram();
+        histogramLoad.whenComplete((loaded, e) -> runOnUiThread(() -> {
+            if (e != null) {
+                Log.w(TAG, "Error getting score histogram", e);
+                return;
+            }
+            histogram = loaded;
+            showTable(table); // 표 안에서 매긴 임시 순위를 분포의 순위로 바꾼다
+        }));
         loadRanking();
+        loadMyRank();
+
+        Spinner windowSpinner = findViewById(R.id.windowSpinner);
+        if (services.getRankingRepository(LeaderboardWindow.DAILY) == null) {
+            windowSpinner.setVisibility(View.GONE); // 기간별 랭킹이 없는 백엔드
+        }
+        windowSpinner.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
+            @Override
+            public void onItemSelected(AdapterView<?> parent, View view, int position, long id) {
+                selectWindow(LeaderboardWindow.values()[position]);
+            }
+
+            @Override
+            public void onNothingSelected(AdapterView<?> parent) {
+            }
+        });
+
+        liveSwitch.setOnCheckedChangeListener((buttonView, isChecked) -> {
+            if (isChecked) {
+                listView.setAdapter(liveAdapter);
+                startLive();
+            } else {
+                stopLive();
+                listView.setAdapter(adapter);
+            }
+        });
 
         exitButton.setOnClickListener(new View.OnClickListener() {
             @Override
@@ -49,36 +137,236 @@ public class RankActivity extends AppCompatActivity {
         });
     }
 
-    private void loadRanking() {
-        DocumentReference docRef = db.collection("ranking").document("totalRanking");
+    /**
+     * 점수 분포 문서 하나로 내 순위를 구한다. 내 점수는 "내 주변"을 읽을 때 함께 받은 서버의 내 줄을 쓴다.
+     * 기기에 저장된 최고 점수는 다른 기기에서 올린 점수를 모르므로 쓰지 않는다.
+     * 같은 분포로 "내 주변" 줄들의 순위도 매기므로 두 곳의 내 순위가 늘 같다.
+     */
+    private void loadMyRank() {
+        FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
+        if (user == null) {
+            return;
+        }
+        TextView myRankText = findViewById(R.id.myRankText);
+        RecyclerView aroundList = findViewById(R.id.aroundList);
+        RankAdapter aroundAdapter = new RankAdapter();
+        aroundList.setLayoutManager(new LinearLayoutManager(this));
+        aroundList.setAdapter(aroundAdapter);
 
-        docRef.get().addOnSuccessListener(documentSnapshot -> {
-            if (documentSnapshot.exists()) {
-                Map<String, Object> entries = (Map<String, Object>) documentSnapshot.get("entries");
+        // 내 위아래 NEIGHBORHOOD_RADIUS 명씩. 범위 쿼리 두세 번으로 21 줄만 읽는다
+        Neighborhood.load(allTimeRepository, user.getUid(), RankingSchema.NEIGHBORHOOD_RADIUS)
+                .thenCombine(histogramLoad, (neighborhood, histogram) -> {
+                    if (neighborhood.getOwnIndex() < 0) {
+                        return null; // 아직 기록이 없다
+                    }
+                    RankEntry own = neighborhood.getRows().get(neighborhood.getOwnIndex());
+                    String standing = describeStanding(histogram, own.getScore());
+                    RankTable rows = RankTable.of(neighborhood.getRows());
+                    int[] ranks = neighborhood.competitionRanks(histogram);
+                    runOnUiThread(() -> {
+                        myRankText.setText("내 순위: " + standing);
+                        findViewById(R.id.aroundTitleText).setVisibility(View.VISIBLE);
+                        aroundList.setVisibility(View.VISIBLE);
+                        aroundAdapter.submitTable(rows, ranks);
+                        aroundList.scrollToPosition(neighborhood.getOwnIndex());
+                    });
+                    return null;
+                })
+                .exceptionally(e -> {
+                    Log.w(TAG, "Error getting my rank", e);
+                    return null;
+                });
+    }
 
-                if (entries != null) {
-                    for (Map.Entry<String, Object> entry : entries.entrySet()) {
-                        String key = entry.getKey();
-                        Map<String, Object> value = (Map<String, Object>) entry.getValue();
+    /**
+     * "12위 (상위 3.4%)" 형식. 게임 종료 창에서도 같이 쓴다.
+     */
+    static String describeStanding(ScoreHistogram histogram, int score) {
+        return String.format(Locale.getDefault(), "%d위 (상위 %.1f%%)",
+                histogram.rankOf(score), histogram.topPercent(score));
+    }
 
-                        String name = (String) value.get("name");
-                        Long score = (Long) value.get("score");
+    /**
+     * 고른 기간의 칸 하나만 처음부터 다시 읽는다. 실시간 구독 중이면 그 칸으로 다시 구독한다.
+     */
+    private void selectWindow(LeaderboardWindow selected) {
+        if (selected == window) {
+            return;
+        }
+        window = selected;
+        rankingRepository = services.getRankingRepository(selected);
+        generation++; // 이전 기간의 응답은 버린다
+        loading = false;
+        table = RankTable.EMPTY;
+        cursor = null;
+        showTable(table);
+        loadRanking();
+        if (liveRegistration != null) {
+            stopLive();
+            startLive();
+        }
+    }
 
-                        Log.d(TAG, "Key: " + key + ", Name: " + name + ", Score: " + score);
+    @Override
+    protected void onStart() {
+        super.onStart();
+        if (liveSwitch.isChecked()) {
+            startLive();
+        }
+    }
 
-                        rankingList.add(name + " : " + score);
+    @Override
+    protected void onStop() {
+        super.onStop();
+        stopLive();
+    }
 
+    /**
+     * 상위 TOP_N 을 구독한다. 처음 스냅샷 뒤로는 바뀐 문서만 받아서 색인에 적용한다.
+     */
+    private void startLive() {
+        if (liveRegistration != null) {
+            return;
+        }
+        liveAdapter.clear();
+        int session = ++liveSession;
+        liveRegistration = rankingRepository.observeChanges(RankingSchema.TOP_N,
+                new RankingRepository.ChangeListener() {
+                    @Override
+                    public void onChanges(List<RankChange> changes) {
+                        runOnUiThread(() -> {
+                            if (session == liveSession && liveRegistration != null) {
+                                liveAdapter.applyChanges(changes);
+                            }
+                        });
                     }
-                    adapter.notifyDataSetChanged();
-                } else {
-                    Log.d(TAG, "No entries field found");
-                }
 
-            } else {
-                Log.d(TAG, "No such document");
+                    @Override
+                    public void onError(Exception e) {
+                        Log.w(TAG, "Live ranking failed", e);
+                    }
+                });
+    }
+
+    private void stopLive() {
+        if (liveRegistration != null) {
+            liveRegistration.remove();
+            liveRegistration = null;
+            liveSession++;
+        }
+    }
+
+    private void loadRanking() {
+        // 캐시된 첫 페이지를 먼저 그리고, 오래됐거나 없으면 뒤에서 새로 받아 온다.
+        // 캐시 파일 읽기와 정렬도 readExecutor 에서 하고 UI 스레드는 완성된 표만 받는다
+        int requestGeneration = ++generation;
+        loading = true;
+        String cacheKey = window == LeaderboardWindow.ALL_TIME
+                ? CACHE_KEY_TOP : CACHE_KEY_TOP + "-" + window.bucketKey(System.currentTimeMillis());
+        RankingRepository repository = rankingRepository;
+        CompletableFuture.supplyAsync(() -> leaderboardCache.get(cacheKey), readExecutor)
+                .thenCompose(snapshot -> {
+                    if (snapshot != null) {
+                        Page cached = toPage(RankTable.EMPTY, snapshot.getEntries());
+                        runOnUiThread(() -> {
+                            if (requestGeneration == generation) {
+                                showFirstPage(cached);
+                            }
+                        });
+                        if (!leaderboardCache.isStale(snapshot, System.currentTimeMillis())) {
+                            return CompletableFuture.completedFuture(cached);
+                        }
+                    }
+                    // 첫 화면은 압축 작업이 만든 상위 100 문서 하나로 채우고, 그 뒤는 커서로 이어 읽는다
+                    return repository.topSnapshot().thenApplyAsync(entries -> {
+                        if (entries.isEmpty()) {
+                            Log.d(TAG, "No ranking documents");
+                        }
+                        leaderboardCache.put(cacheKey, entries, System.currentTimeMillis());
+                        return toPage(RankTable.EMPTY, entries);
+                    }, readExecutor);
+                })
+                .whenComplete((firstPage, e) -> runOnUiThread(() -> {
+                    if (requestGeneration != generation) {
+                        return;
+                    }
+                    loading = false;
+                    if (e != null) {
+                        Log.w(TAG, "Error getting ranking", e);
+                        return;
+                    }
+                    showFirstPage(firstPage);
+                }));
+    }
+
+    /**
+     * 서버가 마지막으로 준 줄을 커서로 다음 페이지를 붙인다.
+     */
+    private void loadNextPage() {
+        if (loading || endReached || cursor == null) {
+            return;
+        }
+        int requestGeneration = generation;
+        RankTable current = table;
+        loading = true;
+        rankingRepository.pageAfter(cursor, RankingSchema.PAGE_SIZE)
+                .thenApplyAsync(entries -> toPage(current, entries), readExecutor)
+                .whenComplete((next, e) -> runOnUiThread(() -> {
+                    if (requestGeneration != generation) {
+                        return;
+                    }
+                    loading = false;
+                    if (e != null) {
+                        Log.w(TAG, "Error getting ranking page", e);
+                        return;
+                    }
+                    // 표에서 겹친 줄이 빠져도 끝은 서버가 준 줄 수로 판단한다
+                    endReached = next.entries.size() < RankingSchema.PAGE_SIZE;
+                    showPage(next);
+                }));
+    }
+
+    /**
+     * readExecutor 에서 부른다. 줄마다 찍는 로그는 디버그 빌드에서만 남긴다.
+     */
+    private static Page toPage(RankTable previous, List<RankEntry> entries) {
+        if (BuildConfig.DEBUG) {
+            for (RankEntry entry : entries) {
+                Log.d(TAG, "Key: " + entry.getUid() + ", Name: " + entry.getName() + ", Score: " + entry.getScore());
             }
-        }).addOnFailureListener(e -> {
-            Log.w(TAG, "Error getting document", e);
-        });
+        }
+        return new Page(entries, previous.append(entries));
+    }
+
+    private void showFirstPage(Page firstPage) {
+        cursor = null;
+        endReached = firstPage.entries.size() < RankingSchema.MATERIALIZED_TOP_N;
+        showPage(firstPage);
+    }
+
+    private void showPage(Page page) {
+        if (!page.entries.isEmpty()) {
+            cursor = page.entries.get(page.entries.size() - 1);
+        }
+        showTable(page.table);
+    }
+
+    private void showTable(RankTable next) {
+        table = next;
+        // 전체 기간 분포는 기간별 칸의 순위와 맞지 않으므로 전체 기간일 때만 쓴다
+        adapter.submitTable(next, window == LeaderboardWindow.ALL_TIME ? histogram : null);
+    }
+
+    /**
+     * 서버가 준 페이지 그대로와, 그 페이지를 붙인 표.
+     */
+    private static final class Page {
+        final List<RankEntry> entries;
+        final RankTable table;
+
+        Page(List<RankEntry> entries, RankTable table) {
+            this.entries = entries;
+            this.table = table;
+        }
     }
-}
\ No newline at end of file
+}
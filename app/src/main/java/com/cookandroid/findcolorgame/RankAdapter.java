@@ -0,0 +1,136 @@
+package com.cookandroid.findcolorgame;
+
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.cookandroid.findcolorgame.core.ranking.RankTable;
+import com.cookandroid.findcolorgame.core.ranking.ScoreHistogram;
+
+import java.util.AbstractList;
+
+/**
+ * 랭킹 목록 어댑터. 새 목록과의 차이는 AsyncListDiffer 가 백그라운드에서 계산하고,
+ * 바뀐 줄에만 notifyItem* 을 보낸다.
+ */
+class RankAdapter extends RecyclerView.Adapter<RankAdapter.RowHolder> {
+
+    private static final DiffUtil.ItemCallback<RankRow> DIFF = new DiffUtil.ItemCallback<RankRow>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull RankRow oldRow, @NonNull RankRow newRow) {
+            return oldRow.uid.equals(newRow.uid);
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull RankRow oldRow, @NonNull RankRow newRow) {
+            return oldRow.equals(newRow);
+        }
+    };
+
+    private final AsyncListDiffer<RankRow> differ = new AsyncListDiffer<>(this, DIFF);
+
+    /**
+     * UI 스레드에서 불러야 한다. 줄 객체는 diff 계산과 bind 때 필요한 만큼만 표에서 꺼내 만든다.
+     * 표는 1 위부터 이어 읽은 것이고 같은 점수는 같은 순위다. histogram 이 있으면 그 분포의 rankOf 로 매겨
+     * "내 주변"과 번호가 같고, 없으면(기간별 칸, 분포를 받기 전) 표에서 자기보다 점수가 높은 줄 수 + 1 이다.
+     */
+    void submitTable(RankTable table, @Nullable ScoreHistogram histogram) {
+        differ.submitList(new AbstractList<RankRow>() {
+            @Override
+            public RankRow get(int index) {
+                int rank = histogram != null
+                        ? (int) histogram.rankOf((int) table.scoreAt(index))
+                        : firstIndexOfScore(table, index) + 1;
+                return RankRow.of(table, index, rank);
+            }
+
+            @Override
+            public int size() {
+                return table.size();
+            }
+        });
+    }
+
+    /**
+     * 점수 내림차순인 표에서 index 줄과 같은 점수가 처음 나오는 자리. 같은 점수 묶음이 길어도 이분 탐색이다.
+     */
+    private static int firstIndexOfScore(RankTable table, int index) {
+        long score = table.scoreAt(index);
+        int low = 0;
+        int high = index;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (table.scoreAt(mid) > score) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * 줄마다 순위를 따로 주는 목록. "내 주변"처럼 같은 점수에 같은 순위를 보여 줄 때 쓴다.
+     */
+    void submitTable(RankTable table, int[] ranks) {
+        differ.submitList(new AbstractList<RankRow>() {
+            @Override
+            public RankRow get(int index) {
+                return RankRow.of(table, index, ranks[index]);
+            }
+
+            @Override
+            public int size() {
+                return table.size();
+            }
+        });
+    }
+
+    @NonNull
+    @Override
+    public RowHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        return RowHolder.create(parent);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull RowHolder holder, int position) {
+        RankRow row = differ.getCurrentList().get(position);
+        holder.bind(row.rank, row.name, row.score);
+    }
+
+    @Override
+    public int getItemCount() {
+        return differ.getCurrentList().size();
+    }
+
+    static final class RowHolder extends RecyclerView.ViewHolder {
+        final TextView rankText;
+        final TextView nameText;
+        final TextView scoreText;
+
+        RowHolder(View itemView) {
+            super(itemView);
+            rankText = itemView.findViewById(R.id.rankText);
+            nameText = itemView.findViewById(R.id.nameText);
+            scoreText = itemView.findViewById(R.id.scoreText);
+        }
+
+        static RowHolder create(ViewGroup parent) {
+            View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_rank, parent, false);
+            return new RowHolder(view);
+        }
+
+        void bind(int rank, String name, long score) {
+            rankText.setText(String.valueOf(rank));
+            nameText.setText(name);
+            scoreText.setText(String.valueOf(score));
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.cookandroid.findcolorgame;
+
+import com.cookandroid.findcolorgame.core.ranking.RankTable;
+
+/**
+ * 랭킹 화면의 한 줄. 순위와 점수는 기본형으로 들고 있어 bind 할 때 박싱이나 문자열 파싱이 없다.
+ */
+final class RankRow {
+
+    final String uid;
+    final String name;
+    final long score;
+    final int rank;
+
+    RankRow(String uid, String name, long score, int rank) {
+        this.uid = uid;
+        this.name = name;
+        this.score = score;
+        this.rank = rank;
+    }
+
+    static RankRow of(RankTable table, int position, int rank) {
+        return new RankRow(table.uidAt(position), table.nameAt(position), table.scoreAt(position), rank);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof RankRow)) {
+            return false;
+        }
+        RankRow other = (RankRow) o;
+        return score == other.score && rank == other.rank && uid.equals(other.uid)
+                && (name == null ? other.name == null : name.equals(other.name));
+    }
+
+    @Override
+    public int hashCode() {
+        int result = uid.hashCode();
+        result = 31 * result + (name != null ? name.hashCode() : 0);
+        result = 31 * result + Long.hashCode(score);
+        result = 31 * result + rank;
+        return result;
+    }
+}
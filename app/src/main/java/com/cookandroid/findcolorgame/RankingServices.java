@@ -0,0 +1,195 @@
+package com.cookandroid.findcolorgame;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.util.Log;
+
+import com.cookandroid.findcolorgame.core.ranking.AllTimeRankingRepository;
+import com.cookandroid.findcolorgame.core.ranking.Backoff;
+import com.cookandroid.findcolorgame.core.ranking.LeaderboardCache;
+import com.cookandroid.findcolorgame.core.ranking.LeaderboardWindow;
+import com.cookandroid.findcolorgame.core.ranking.RankingRepository;
+import com.cookandroid.findcolorgame.core.ranking.RecentGameIds;
+import com.cookandroid.findcolorgame.core.ranking.RepositoryScoreBackend;
+import com.cookandroid.findcolorgame.core.ranking.ScoreBackend;
+import com.cookandroid.findcolorgame.core.ranking.ScorePipeline;
+import com.cookandroid.findcolorgame.core.ranking.ScoreQueue;
+import com.cookandroid.findcolorgame.core.ranking.ScoreUploader;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.firestore.FirebaseFirestore;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * 앱 전체에서 하나만 쓰는 랭킹 관련 객체들. 점수 큐 파일과 업로드 스레드는 화면과 무관하게 유지된다.
+ */
+public final class RankingServices {
+
+    private static final String TAG = "RankingServices";
+    private static final String QUEUE_FILE_NAME = "score_queue.bin";
+    private static final String GAME_IDS_FILE_NAME = "submitted_game_ids.txt";
+    private static final String BACKEND_REALTIME = "realtime";
+    private static final String LEADERBOARD_CACHE_DIR = "leaderboard";
+    private static final long LEADERBOARD_TTL_MILLIS = 60 * 1000;
+    private static final int PIPELINE_MAX_ATTEMPTS = 5;
+
+    private static RankingServices instance;
+
+    public static synchronized RankingServices get(Context context) {
+        if (instance == null) {
+            instance = new RankingServices(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private final AllTimeRankingRepository rankingRepository;
+    private final FirebaseFirestore firestore; // realtime 백엔드면 null
+    private final ProfileNames profileNames; // realtime 백엔드면 null
+    private final ScoreQueue scoreQueue;
+    private final ScoreUploader scoreUploader;
+    private final ScoreSubmitter scoreSubmitter;
+    private final ScorePipeline scorePipeline;
+    private final LeaderboardCache leaderboardCache;
+    private final Executor readExecutor = Executors.newSingleThreadExecutor();
+
+    private RankingServices(Context appContext) {
+        // 랭킹 저장소는 R.string.ranking_backend 로 고른다 (firestore / realtime)
+        ScoreBackend scoreBackend;
+        if (BACKEND_REALTIME.equals(appContext.getString(R.string.ranking_backend))) {
+            rankingRepository = new RealtimeRankingRepository(FirebaseDatabase.getInstance(), readExecutor);
+            firestore = null;
+            profileNames = null;
+            scoreBackend = new RepositoryScoreBackend(rankingRepository);
+        } else {
+            firestore = FirebaseFirestore.getInstance();
+            profileNames = new ProfileNames(firestore);
+            rankingRepository = FirestoreRankingRepository.allTime(firestore, profileNames, readExecutor);
+            scoreBackend = new FirestoreScoreBackend(firestore); // 묶음 전체를 트랜잭션 하나로 쓴다
+        }
+
+        ScheduledExecutorService uploadExecutor = Executors.newSingleThreadScheduledExecutor();
+        scoreQueue = openQueue(new File(appContext.getFilesDir(), QUEUE_FILE_NAME));
+        scoreUploader = new ScoreUploader(scoreQueue, scoreBackend, uploadExecutor,
+                new Backoff(1000, 5 * 60 * 1000));
+
+        // 게임 종료 점수는 자체 랭킹과 Play 게임즈에 동시에 보낸다. 곳마다 스레드 하나씩
+        scoreSubmitter = new ScoreSubmitter(appContext, scoreUploader);
+        // 보낸 gameId 는 파일에 남겨 두어 프로세스가 죽은 뒤 되살린 게임이 다시 끝나도 한 번만 보낸다
+        scorePipeline = new ScorePipeline(Arrays.asList(scoreSubmitter, new PlayGamesScoreSink(appContext)),
+                Executors.newScheduledThreadPool(2), new Backoff(1000, 60 * 1000), PIPELINE_MAX_ATTEMPTS,
+                openRecentGameIds(new File(appContext.getFilesDir(), GAME_IDS_FILE_NAME)));
+        scorePipeline.setListener((sinkName, score, attempt, latencyNanos, error, willRetry) -> {
+            long latencyMillis = latencyNanos / 1_000_000;
+            if (error == null) {
+                Log.d(TAG, sinkName + " took " + latencyMillis + " ms (attempt " + (attempt + 1) + ")");
+            } else {
+                Log.w(TAG, sinkName + " failed after " + latencyMillis + " ms (attempt " + (attempt + 1)
+                        + (willRetry ? ", retrying)" : ", giving up)"), error);
+            }
+        });
+
+        leaderboardCache = new LeaderboardCache(new File(appContext.getCacheDir(), LEADERBOARD_CACHE_DIR), 8,
+                LEADERBOARD_TTL_MILLIS, Executors.newSingleThreadExecutor());
+
+        // 네트워크가 다시 연결되면 기다리지 않고 바로 보낸다
+        ConnectivityManager connectivityManager =
+                (ConnectivityManager) appContext.getSystemService(Context.CONNECTIVITY_SERVICE);
+        if (connectivityManager != null) {
+            connectivityManager.registerDefaultNetworkCallback(new ConnectivityManager.NetworkCallback() {
+                @Override
+                public void onAvailable(Network network) {
+                    if (!scoreQueue.isEmpty()) {
+                        scoreUploader.requestFlush();
+                    }
+                }
+            });
+        }
+
+        // 지난 실행에서 남은 점수
+        if (!scoreQueue.isEmpty()) {
+            scoreUploader.requestFlush();
+        }
+    }
+
+    private static RecentGameIds openRecentGameIds(File file) {
+        try {
+            return new RecentGameIds(file, ScorePipeline.RECENT_GAME_IDS);
+        } catch (IOException e) {
+            Log.w(TAG, "Submitted game ids are unreadable, starting empty", e);
+            file.delete();
+            try {
+                return new RecentGameIds(file, ScorePipeline.RECENT_GAME_IDS);
+            } catch (IOException again) {
+                throw new IllegalStateException(again);
+            }
+        }
+    }
+
+    private static ScoreQueue openQueue(File file) {
+        try {
+            return new ScoreQueue(file);
+        } catch (IOException e) {
+            Log.w(TAG, "Score queue is unreadable, starting empty", e);
+            file.delete();
+            try {
+                return new ScoreQueue(file);
+            } catch (IOException again) {
+                throw new IllegalStateException(again);
+            }
+        }
+    }
+
+    public AllTimeRankingRepository getRankingRepository() {
+        return rankingRepository;
+    }
+
+    /**
+     * 지금 시점의 기간별 랭킹 저장소. 기간 칸은 Firestore 에만 있으므로 realtime 백엔드면 null.
+     */
+    public RankingRepository getRankingRepository(LeaderboardWindow window) {
+        if (window == LeaderboardWindow.ALL_TIME) {
+            return rankingRepository;
+        }
+        if (firestore == null) {
+            return null;
+        }
+        return FirestoreRankingRepository.forWindow(firestore, window, System.currentTimeMillis(), profileNames,
+                readExecutor);
+    }
+
+    public LeaderboardCache getLeaderboardCache() {
+        return leaderboardCache;
+    }
+
+    /**
+     * 랭킹 응답 파싱과 정렬을 하는 백그라운드 스레드. 화면은 결과만 UI 스레드에서 받는다.
+     */
+    public Executor getReadExecutor() {
+        return readExecutor;
+    }
+
+    public ScoreQueue getScoreQueue() {
+        return scoreQueue;
+    }
+
+    public ScoreUploader getScoreUploader() {
+        return scoreUploader;
+    }
+
+    public ScoreSubmitter getScoreSubmitter() {
+        return scoreSubmitter;
+    }
+
+    /**
+     * 게임 종료 점수를 보내는 유일한 입구. submit 은 바로 돌아온다.
+     */
+    public ScorePipeline getScorePipeline() {
+        return scorePipeline;
+    }
+}
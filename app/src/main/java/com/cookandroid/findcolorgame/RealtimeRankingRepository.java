@@ -0,0 +1,325 @@
+package com.cookandroid.findcolorgame;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.cookandroid.findcolorgame.core.ranking.AllTimeRankingRepository;
+import com.cookandroid.findcolorgame.core.ranking.RankChange;
+import com.cookandroid.findcolorgame.core.ranking.RankEntry;
+import com.cookandroid.findcolorgame.core.ranking.RankingSchema;
+import com.cookandroid.findcolorgame.core.ranking.ScoreHistogram;
+import com.google.firebase.database.ChildEventListener;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.MutableData;
+import com.google.firebase.database.Query;
+import com.google.firebase.database.ServerValue;
+import com.google.firebase.database.Transaction;
+import com.google.firebase.database.ValueEventListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Realtime Database 의 /rankings/{uid} 노드를 쓰는 랭킹 저장소.
+ * 점수 정렬을 서버에서 하려면 규칙에 ".indexOn": "score" 가 있어야 한다.
+ * 인덱스는 같은 점수를 키 오름차순으로만 놓으므로, 페이지는 경계의 같은 점수 칸을 다시 읽어
+ * 다른 저장소처럼 RankEntry.compare 순서(점수 내림차순, 같으면 uid 오름차순)로 돌려준다.
+ *
+ * <p>점수 분포(/rankingStats/histogram/buckets)는 점수 노드 트랜잭션이 커밋된 뒤 따로 updateChildren 으로 고친다.
+ * 두 쓰기는 원자적이지 않아서, 그 사이에 앱이 죽거나 증감 쓰기가 실패하면 분포가 점수 노드와 어긋난 채로 남는다.
+ * 그래서 분포로 구한 순위와 백분위는 근삿값이고, rankOf 는 분포가 나를 세지 않았으면 노드를 직접 센다.
+ */
+public class RealtimeRankingRepository implements AllTimeRankingRepository {
+
+    private final DatabaseReference rankings;
+    private final DatabaseReference histogramBuckets;
+    private final Executor parseExecutor; // 읽은 결과를 RankEntry 로 바꾸는 스레드
+
+    public RealtimeRankingRepository(FirebaseDatabase database, Executor parseExecutor) {
+        this.rankings = database.getReference(RankingSchema.COLLECTION_RANKINGS);
+        this.histogramBuckets = database.getReference(RankingSchema.COLLECTION_STATS)
+                .child(RankingSchema.DOC_HISTOGRAM).child(RankingSchema.FIELD_BUCKETS);
+        this.parseExecutor = parseExecutor;
+    }
+
+    @Override
+    public CompletableFuture<Void> submit(String uid, String name, int score) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        rankings.child(uid).runTransaction(new Transaction.Handler() {
+            // 마지막으로 실행된 doTransaction 이 본 값. 커밋된 뒤 분포를 고칠 때 쓴다
+            private Long previous;
+            private boolean raised;
+
+            @NonNull
+            @Override
+            public Transaction.Result doTransaction(@NonNull MutableData currentData) {
+                Long current = currentData.child(RankingSchema.FIELD_SCORE).getValue(Long.class);
+                previous = current;
+                raised = current == null || current < score;
+                if (!raised) {
+                    return Transaction.success(currentData);
+                }
+                currentData.child(RankingSchema.FIELD_KEY).setValue(uid);
+                currentData.child(RankingSchema.FIELD_NAME).setValue(name);
+                currentData.child(RankingSchema.FIELD_SCORE).setValue(score);
+                return Transaction.success(currentData);
+            }
+
+            @Override
+            public void onComplete(@Nullable DatabaseError error, boolean committed,
+                                   @Nullable DataSnapshot currentData) {
+                if (error != null) {
+                    future.completeExceptionally(error.toException());
+                    return;
+                }
+                if (committed && raised) {
+                    // 점수 노드와 한 트랜잭션으로 묶을 수 없어 서버 증감으로 따로 고친다 (원자적이지 않다, 클래스 설명 참고)
+                    Map<String, Long> deltas = new HashMap<>();
+                    ScoreHistogram.addChange(deltas, previous != null ? previous.intValue() : null, score);
+                    Map<String, Object> increments = new HashMap<>();
+                    for (Map.Entry<String, Long> delta : deltas.entrySet()) {
+                        increments.put(delta.getKey(), ServerValue.increment(delta.getValue()));
+                    }
+                    histogramBuckets.updateChildren(increments);
+                }
+                future.complete(null);
+            }
+        });
+        return future;
+    }
+
+    @Override
+    public CompletableFuture<List<RankEntry>> topN(int n) {
+        return below(null, n);
+    }
+
+    @Override
+    public CompletableFuture<List<RankEntry>> topSnapshot() {
+        // 압축 작업은 Firestore 만 대상으로 한다
+        return topN(RankingSchema.MATERIALIZED_TOP_N);
+    }
+
+    @Override
+    public CompletableFuture<List<RankEntry>> pageAfter(RankEntry after, int n) {
+        if (after == null) {
+            return below(null, n);
+        }
+        // 커서와 같은 점수에서 키가 더 큰 줄이 먼저 온다
+        Query ties = rankings.orderByChild(RankingSchema.FIELD_SCORE)
+                .startAfter(after.getScore(), after.getUid()).endAt(after.getScore()).limitToFirst(n);
+        return TaskFutures.toFuture(ties.get(), parseExecutor).thenCompose(snapshot -> {
+            List<RankEntry> page = toAscendingEntries(snapshot);
+            if (page.size() >= n) {
+                return CompletableFuture.completedFuture(page);
+            }
+            return below(after.getScore(), n - page.size()).thenApply(rest -> {
+                page.addAll(rest);
+                return page;
+            });
+        });
+    }
+
+    @Override
+    public CompletableFuture<List<RankEntry>> pageBefore(RankEntry before, int n) {
+        // 커서와 같은 점수에서 키가 더 작은 줄 중 커서에 가까운 쪽
+        Query ties = rankings.orderByChild(RankingSchema.FIELD_SCORE)
+                .startAt(before.getScore()).endBefore(before.getScore(), before.getUid()).limitToLast(n);
+        return TaskFutures.toFuture(ties.get(), parseExecutor).thenCompose(snapshot -> {
+            List<RankEntry> page = toAscendingEntries(snapshot);
+            if (page.size() >= n) {
+                return CompletableFuture.completedFuture(page);
+            }
+            return above(before.getScore(), n - page.size()).thenApply(rest -> {
+                rest.addAll(page);
+                return rest;
+            });
+        });
+    }
+
+    /**
+     * 점수가 score 보다 낮은 줄 중 랭킹 순서로 처음 n 개. score 가 null 이면 맨 위부터.
+     * 인덱스는 (점수, 키) 오름차순이라 뒤에서 n 개를 읽으면 가장 낮은 점수 칸은 키가 큰 쪽만 올 수 있다.
+     * 그 칸은 빼고 같은 점수에서 키가 작은 쪽부터 다시 읽어, 같은 점수끼리도 RankEntry.compare 순서가 되게 한다.
+     */
+    private CompletableFuture<List<RankEntry>> below(Integer score, int n) {
+        Query query = rankings.orderByChild(RankingSchema.FIELD_SCORE);
+        if (score != null) {
+            query = query.endBefore(score);
+        }
+        return TaskFutures.toFuture(query.limitToLast(n).get(), parseExecutor).thenCompose(snapshot -> {
+            List<RankEntry> rows = toAscendingEntries(snapshot);
+            if (rows.size() < n) {
+                // 남은 줄을 다 읽었으므로 잘린 칸이 없다
+                return CompletableFuture.completedFuture(inRankOrder(rows));
+            }
+            int lowest = rows.get(0).getScore();
+            int cut = 0;
+            while (cut < rows.size() && rows.get(cut).getScore() == lowest) {
+                cut++;
+            }
+            List<RankEntry> higher = inRankOrder(rows.subList(cut, rows.size()));
+            Query lowestTies = rankings.orderByChild(RankingSchema.FIELD_SCORE).equalTo(lowest).limitToFirst(cut);
+            return TaskFutures.toFuture(lowestTies.get(), parseExecutor).thenApply(tail -> {
+                higher.addAll(toAscendingEntries(tail));
+                return higher;
+            });
+        });
+    }
+
+    /**
+     * 점수가 score 보다 높은 줄 중 랭킹 순서로 마지막 n 개. below 와 거꾸로, 가장 높은 점수 칸은 키가 큰 쪽부터 다시 읽는다.
+     */
+    private CompletableFuture<List<RankEntry>> above(int score, int n) {
+        Query query = rankings.orderByChild(RankingSchema.FIELD_SCORE).startAfter(score).limitToFirst(n);
+        return TaskFutures.toFuture(query.get(), parseExecutor).thenCompose(snapshot -> {
+            List<RankEntry> rows = toAscendingEntries(snapshot);
+            if (rows.size() < n) {
+                return CompletableFuture.completedFuture(inRankOrder(rows));
+            }
+            int highest = rows.get(rows.size() - 1).getScore();
+            int keep = rows.size();
+            while (keep > 0 && rows.get(keep - 1).getScore() == highest) {
+                keep--;
+            }
+            List<RankEntry> lower = inRankOrder(rows.subList(0, keep));
+            Query highestTies = rankings.orderByChild(RankingSchema.FIELD_SCORE)
+                    .equalTo(highest).limitToLast(rows.size() - keep);
+            return TaskFutures.toFuture(highestTies.get(), parseExecutor).thenApply(head -> {
+                List<RankEntry> page = toAscendingEntries(head);
+                page.addAll(lower);
+                return page;
+            });
+        });
+    }
+
+    @Override
+    public CompletableFuture<RankEntry> entryOf(String uid) {
+        return TaskFutures.toFuture(rankings.child(uid).get(), parseExecutor)
+                .thenApply(snapshot -> snapshot.exists() ? toEntry(snapshot) : null);
+    }
+
+    @Override
+    public CompletableFuture<Integer> rankOf(String uid) {
+        // 분포 칸 수만 더하면 되므로 더 높은 노드를 내려받지 않는다. 내 노드와 분포는 함께 읽는다
+        CompletableFuture<ScoreHistogram> histogram = histogram();
+        return TaskFutures.toFuture(rankings.child(uid).get()).thenCompose(snapshot -> {
+            Long mine = snapshot.child(RankingSchema.FIELD_SCORE).getValue(Long.class);
+            if (mine == null) {
+                return CompletableFuture.completedFuture(0);
+            }
+            int score = mine.intValue();
+            return histogram.thenCompose(loaded -> {
+                if (loaded.countOf(score) > 0) {
+                    return CompletableFuture.completedFuture((int) loaded.rankOf(score));
+                }
+                // 분포가 나를 세지 않았다 (분포 전에 쓴 기록이거나 증감이 빠졌다). 이때만 더 높은 노드를 받아서 센다
+                return TaskFutures.toFuture(rankings.orderByChild(RankingSchema.FIELD_SCORE).startAfter(mine).get())
+                        .thenApply(higher -> (int) higher.getChildrenCount() + 1);
+            });
+        });
+    }
+
+    @Override
+    public CompletableFuture<ScoreHistogram> histogram() {
+        return TaskFutures.toFuture(histogramBuckets.get(), parseExecutor).thenApply(snapshot -> {
+            Map<String, Long> buckets = new HashMap<>();
+            for (DataSnapshot bucket : snapshot.getChildren()) {
+                Long count = bucket.getValue(Long.class);
+                if (count != null) {
+                    buckets.put(bucket.getKey(), count);
+                }
+            }
+            return ScoreHistogram.fromBuckets(buckets);
+        });
+    }
+
+    @Override
+    public Registration observe(int n, Listener listener) {
+        Query query = topQuery(n);
+        ValueEventListener valueListener = query.addValueEventListener(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                listener.onChanged(toEntries(snapshot));
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                listener.onError(error.toException());
+            }
+        });
+        return () -> query.removeEventListener(valueListener);
+    }
+
+    @Override
+    public Registration observeChanges(int n, ChangeListener listener) {
+        // 자식 이벤트가 곧 변경분이다. 위치는 받는 쪽 색인이 다시 계산하므로 onChildMoved 는 무시한다
+        Query query = topQuery(n);
+        ChildEventListener childListener = query.addChildEventListener(new ChildEventListener() {
+            @Override
+            public void onChildAdded(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+                listener.onChanges(Collections.singletonList(RankChange.upsert(toEntry(snapshot))));
+            }
+
+            @Override
+            public void onChildChanged(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+                listener.onChanges(Collections.singletonList(RankChange.upsert(toEntry(snapshot))));
+            }
+
+            @Override
+            public void onChildRemoved(@NonNull DataSnapshot snapshot) {
+                listener.onChanges(Collections.singletonList(RankChange.remove(snapshot.getKey())));
+            }
+
+            @Override
+            public void onChildMoved(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                listener.onError(error.toException());
+            }
+        });
+        return () -> query.removeEventListener(childListener);
+    }
+
+    private Query topQuery(int n) {
+        return rankings.orderByChild(RankingSchema.FIELD_SCORE).limitToLast(n);
+    }
+
+    private static RankEntry toEntry(DataSnapshot child) {
+        Long score = child.child(RankingSchema.FIELD_SCORE).getValue(Long.class);
+        return new RankEntry(child.getKey(), child.child(RankingSchema.FIELD_NAME).getValue(String.class),
+                score != null ? score.intValue() : 0);
+    }
+
+    private static List<RankEntry> toEntries(DataSnapshot snapshot) {
+        List<RankEntry> entries = toAscendingEntries(snapshot);
+        Collections.reverse(entries); // 오름차순으로 오므로 뒤집는다. 같은 점수는 키 내림차순이 된다
+        return entries;
+    }
+
+    /**
+     * 인덱스 순서 그대로: 점수 오름차순, 같으면 키 오름차순.
+     */
+    private static List<RankEntry> toAscendingEntries(DataSnapshot snapshot) {
+        List<RankEntry> entries = new ArrayList<>((int) snapshot.getChildrenCount());
+        for (DataSnapshot child : snapshot.getChildren()) {
+            entries.add(toEntry(child));
+        }
+        return entries;
+    }
+
+    private static List<RankEntry> inRankOrder(List<RankEntry> rows) {
+        List<RankEntry> sorted = new ArrayList<>(rows);
+        Collections.sort(sorted, (a, b) -> RankEntry.compare(a.getScore(), a.getUid(), b.getScore(), b.getUid()));
+        return sorted;
+    }
+}
@@ -0,0 +1,86 @@
+package com.cookandroid.findcolorgame;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import com.cookandroid.findcolorgame.core.ranking.LeaderboardWindow;
+import com.cookandroid.findcolorgame.core.ranking.PendingScore;
+import com.cookandroid.findcolorgame.core.ranking.ScorePipeline;
+import com.cookandroid.findcolorgame.core.ranking.ScoreUploader;
+
+/**
+ * 게임 종료 점수를 랭킹에 올린다.
+ * 사용자의 전체/오늘/이번 주 최고 점수를 기기에 저장해 두고, 그중 하나라도 넘을 때만 올린다.
+ * 올릴 점수는 먼저 파일 큐(ScoreQueue)에 기록되므로 오프라인이어도 사라지지 않고, 서버에는
+ * 서버 값보다 클 때만 바꾸는 트랜잭션으로 쓰이므로 랭킹 점수는 절대 내려가지 않는다.
+ * ScorePipeline 의 한 곳으로 백그라운드 스레드에서 불린다.
+ */
+public class ScoreSubmitter implements ScorePipeline.Sink {
+
+    private static final String TAG = "ScoreSubmitter";
+    static final String NAME = "ranking";
+    private static final String PREFS_NAME = "ranking";
+    private static final String KEY_BEST_PREFIX = "best_";
+    // 기간별: best_<기간>_<uid> 에 점수, bucket_<기간>_<uid> 에 그 점수의 칸 이름. 칸이 바뀌면 0 부터 다시 센다
+    private static final String KEY_BUCKET_PREFIX = "bucket_";
+
+    private static final LeaderboardWindow[] WINDOWS = {LeaderboardWindow.DAILY, LeaderboardWindow.WEEKLY};
+
+    private final SharedPreferences prefs;
+    private final ScoreUploader scoreUploader;
+
+    public ScoreSubmitter(Context context, ScoreUploader scoreUploader) {
+        this.prefs = context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        this.scoreUploader = scoreUploader;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * 기기에 저장된 최고 점수. 아직 없으면 0.
+     */
+    public int getCachedBest(String uid) {
+        return prefs.getInt(KEY_BEST_PREFIX + uid, 0);
+    }
+
+    /**
+     * 최고 점수를 넘으면 점수 큐에 기록한다. 큐에 들어가면 이후 업로드와 재시도는 ScoreUploader 가 맡는다.
+     * 최고 점수를 읽고 고쳐 쓰는 사이에 다른 점수가 끼어들지 않도록 한 번에 하나씩 처리한다
+     * (재시도는 파이프라인의 다른 스레드에서 올 수 있다).
+     *
+     * @throws Exception 큐 파일에 쓰지 못했을 때
+     */
+    @Override
+    public synchronized void send(PendingScore pending) throws Exception {
+        String uid = pending.getUid();
+        int score = pending.getScore();
+        long now = pending.getCreatedAtMillis();
+        SharedPreferences.Editor editor = prefs.edit();
+        boolean beatsAny = false;
+        // 큐에 들어가면 이 점수는 반드시 올라가므로 최고 점수로 기록한다 (기록은 큐에 쓴 뒤에 반영)
+        if (score > getCachedBest(uid)) {
+            editor.putInt(KEY_BEST_PREFIX + uid, score);
+            beatsAny = true;
+        }
+        for (LeaderboardWindow window : WINDOWS) {
+            String bucket = window.bucketKey(now);
+            String suffix = window.name() + "_" + uid;
+            boolean sameBucket = bucket.equals(prefs.getString(KEY_BUCKET_PREFIX + suffix, null));
+            if (!sameBucket || score > prefs.getInt(KEY_BEST_PREFIX + suffix, 0)) {
+                editor.putString(KEY_BUCKET_PREFIX + suffix, bucket).putInt(KEY_BEST_PREFIX + suffix, score);
+                beatsAny = true;
+            }
+        }
+        if (!beatsAny) {
+            Log.d(TAG, "Skip ranking write, score " + score + " does not beat any window best");
+            return;
+        }
+        // 큐에 쓰지 못하면 최고 점수도 그대로 두어야 다시 시도할 때 건너뛰지 않는다
+        scoreUploader.submit(pending).get();
+        editor.apply();
+    }
+}
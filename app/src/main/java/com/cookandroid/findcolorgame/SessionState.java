@@ -0,0 +1,63 @@
+package com.cookandroid.findcolorgame;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+
+/**
+ * 프로세스가 종료돼도 게임을 이어가기 위해 SavedStateHandle 에 넣는 최소한의 상태.
+ * 보드는 정답 위치와 기본 색상만 있으면 난수 없이 그대로 다시 채울 수 있다.
+ */
+public final class SessionState implements Parcelable {
+
+    final int stage;
+    final int gridSize;
+    final long seed; // 이후 스테이지를 만드는 난수 시드
+    final int oddIndex;
+    final int baseColor;
+    final long remainingMillis;
+
+    SessionState(int stage, int gridSize, long seed, int oddIndex, int baseColor, long remainingMillis) {
+        this.stage = stage;
+        this.gridSize = gridSize;
+        this.seed = seed;
+        this.oddIndex = oddIndex;
+        this.baseColor = baseColor;
+        this.remainingMillis = remainingMillis;
+    }
+
+    private SessionState(Parcel in) {
+        stage = in.readInt();
+        gridSize = in.readInt();
+        seed = in.readLong();
+        oddIndex = in.readInt();
+        baseColor = in.readInt();
+        remainingMillis = in.readLong();
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeInt(stage);
+        dest.writeInt(gridSize);
+        dest.writeLong(seed);
+        dest.writeInt(oddIndex);
+        dest.writeInt(baseColor);
+        dest.writeLong(remainingMillis);
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    public static final Creator<SessionState> CREATOR = new Creator<SessionState>() {
+        @Override
+        public SessionState createFromParcel(Parcel in) {
+            return new SessionState(in);
+        }
+
+        @Override
+        public SessionState[] newArray(int size) {
+            return new SessionState[size];
+        }
+    };
+}
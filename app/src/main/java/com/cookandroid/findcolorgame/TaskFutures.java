@@ -0,0 +1,32 @@
+package com.cookandroid.findcolorgame;
+
+import com.google.android.gms.tasks.Task;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Firebase Task 를 core 에서 쓰는 CompletableFuture 로 바꾼다. 결과는 메인 스레드에서 채워진다.
+ */
+final class TaskFutures {
+
+    private TaskFutures() {
+    }
+
+    static <T> CompletableFuture<T> toFuture(Task<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        task.addOnSuccessListener(future::complete)
+                .addOnFailureListener(future::completeExceptionally);
+        return future;
+    }
+
+    /**
+     * 결과를 executor 에서 채운다. 뒤에 붙는 thenApply 파싱이 메인 스레드를 막지 않는다.
+     */
+    static <T> CompletableFuture<T> toFuture(Task<T> task, Executor executor) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        task.addOnSuccessListener(executor, future::complete)
+                .addOnFailureListener(executor, future::completeExceptionally);
+        return future;
+    }
+}
@@ -0,0 +1,150 @@
+package com.cookandroid.findcolorgame;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.util.AttributeSet;
+import android.view.MotionEvent;
+import android.view.View;
+
+import com.cookandroid.findcolorgame.core.TileBuffers;
+
+/**
+ * 게임 보드 전체를 하나의 View 에 그린다.
+ * 타일마다 View 를 만들지 않고 색상 배열(int[])만 갖고 있다가 onDraw 한 번에 그리며,
+ * 터치 위치는 행/열 계산으로 타일 인덱스로 바꾼다.
+ */
+public class TileBoardView extends View {
+
+    public interface OnTileClickListener {
+        void onTileClick(int tileIndex);
+    }
+
+    private final Paint tilePaint = new Paint();
+
+    private int gridSize;
+    private int tileSize;
+    private int spacing;
+    private int[] tileColors = new int[0];
+
+    private OnTileClickListener tileClickListener;
+    private int pressedTileIndex = -1;
+
+    public TileBoardView(Context context) {
+        super(context);
+    }
+
+    public TileBoardView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+    }
+
+    public TileBoardView(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+    }
+
+    public void setOnTileClickListener(OnTileClickListener listener) {
+        tileClickListener = listener;
+    }
+
+    /**
+     * 보드 구성을 바꾸고 다시 그린다. colors 는 내부 버퍼로 복사되므로 호출한 쪽에서 재사용해도 된다.
+     * 내부 버퍼는 두 배씩 커지므로 대부분의 스테이지 전환은 새 할당 없이 색상만 덮어쓴다.
+     */
+    public void setBoard(int gridSize, int tileSize, int spacing, int[] colors) {
+        int totalTiles = gridSize * gridSize;
+        tileColors = TileBuffers.ensureCapacity(tileColors, totalTiles);
+        System.arraycopy(colors, 0, tileColors, 0, totalTiles);
+        this.gridSize = gridSize;
+        this.tileSize = tileSize;
+        this.spacing = spacing;
+        invalidate();
+    }
+
+    /**
+     * 배치는 그대로 두고 타일 색상만 바꾼다.
+     */
+    public void setTileColors(int[] colors) {
+        System.arraycopy(colors, 0, tileColors, 0, gridSize * gridSize);
+        invalidate();
+    }
+
+    public int getGridSize() {
+        return gridSize;
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        if (gridSize <= 0 || tileSize <= 0) {
+            return;
+        }
+
+        int pitch = tileSize + spacing;
+        int originX = getPaddingLeft() + spacing / 2;
+        int originY = getPaddingTop() + spacing / 2;
+
+        for (int row = 0; row < gridSize; row++) {
+            int top = originY + row * pitch;
+            int base = row * gridSize;
+            for (int col = 0; col < gridSize; col++) {
+                int left = originX + col * pitch;
+                tilePaint.setColor(tileColors[base + col]);
+                canvas.drawRect(left, top, left + tileSize, top + tileSize, tilePaint);
+            }
+        }
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                pressedTileIndex = tileIndexAt(event.getX(), event.getY());
+                return pressedTileIndex >= 0;
+            case MotionEvent.ACTION_UP:
+                int tileIndex = tileIndexAt(event.getX(), event.getY());
+                if (tileIndex >= 0 && tileIndex == pressedTileIndex) {
+                    performClick();
+                    if (tileClickListener != null) {
+                        tileClickListener.onTileClick(tileIndex);
+                    }
+                }
+                pressedTileIndex = -1;
+                return true;
+            case MotionEvent.ACTION_CANCEL:
+                pressedTileIndex = -1;
+                return true;
+            default:
+                return pressedTileIndex >= 0;
+        }
+    }
+
+    @Override
+    public boolean performClick() {
+        return super.performClick();
+    }
+
+    /**
+     * 터치 좌표가 가리키는 타일 인덱스. 타일 사이 간격이나 보드 밖이면 -1.
+     */
+    private int tileIndexAt(float x, float y) {
+        if (gridSize <= 0 || tileSize <= 0) {
+            return -1;
+        }
+        int pitch = tileSize + spacing;
+        int localX = (int) x - getPaddingLeft() - spacing / 2;
+        int localY = (int) y - getPaddingTop() - spacing / 2;
+        if (localX < 0 || localY < 0) {
+            return -1;
+        }
+
+        int col = localX / pitch;
+        int row = localY / pitch;
+        if (col >= gridSize || row >= gridSize) {
+            return -1;
+        }
+        if (localX % pitch >= tileSize || localY % pitch >= tileSize) {
+            return -1; // 타일 사이 간격
+        }
+        return row * gridSize + col;
+    }
+}
@@ -0,0 +1,28 @@
+plugins {
+    application
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_1_8
+    targetCompatibility = JavaVersion.VERSION_1_8
+}
+
+dependencies {
+    implementation(project(":core"))
+    implementation(libs.google.cloud.firestore)
+}
+
+tasks.withType<JavaCompile>().configureEach {
+    options.encoding = "UTF-8"
+}
+
+// 에뮬레이터에 한 번만:
+//   FIRESTORE_EMULATOR_HOST=localhost:8080 ./gradlew :compactor:run --args="demo-findcolor"
+// 60 초마다 계속:
+//   ./gradlew :compactor:run --args="<project-id> 60"
+// 점수 분포 샤드를 rankings 전체에서 다시 세기 (migrate 도 끝에 한 번 한다):
+//   ./gradlew :compactor:run --args="<project-id> backfill-histogram"
+// 에뮬레이터 변수가 없으면 GOOGLE_APPLICATION_CREDENTIALS 의 서비스 계정으로 실제 프로젝트에 붙는다.
+application {
+    mainClass.set("com.cookandroid.findcolorgame.compactor.TopCompactor")
+}
@@ -0,0 +1,83 @@
+package com.cookandroid.findcolorgame.compactor;
+
+import com.cookandroid.findcolorgame.core.ranking.RankingRecordCodec;
+import com.cookandroid.findcolorgame.core.ranking.RankingSchema;
+import com.cookandroid.findcolorgame.core.ranking.ScoreHistogram;
+import com.google.cloud.firestore.CollectionReference;
+import com.google.cloud.firestore.FieldPath;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.Query;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.WriteBatch;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * 점수 분포 샤드를 rankings/{uid} 전체에서 다시 센다.
+ * 샤드는 점수가 바뀔 때 이전 칸을 빼고 새 칸을 더하기만 하므로, 분포를 쓰기 전에 있던 기록은 세지 않은 채로
+ * 빼기만 당해 칸이 음수가 된다. 이 작업은 모든 샤드의 buckets 를 센 값으로 통째로 바꾼다.
+ *
+ * <p>기록을 다 읽은 뒤에 샤드를 쓰므로 그 사이에 앱이 올린 증감은 덮여 사라질 수 있다.
+ * 점수 쓰기가 뜸할 때 돌리고, 어긋났으면 다시 돌리면 된다. 몇 번을 돌려도 결과는 같다.
+ */
+final class HistogramBackfill {
+
+    private static final int PAGE_SIZE = 500;
+
+    private final Firestore db;
+
+    HistogramBackfill(Firestore db) {
+        this.db = db;
+    }
+
+    /**
+     * @return 센 기록 수
+     */
+    int backfill() throws ExecutionException, InterruptedException {
+        Map<Integer, Map<String, Long>> shards = new HashMap<>();
+        for (int shard = 0; shard < RankingSchema.HISTOGRAM_SHARDS; shard++) {
+            shards.put(shard, new HashMap<>());
+        }
+
+        int counted = 0;
+        QueryDocumentSnapshot last = null;
+        while (true) {
+            // 점수를 읽는 데 필요한 필드만 받는다 (1 판 기록은 score)
+            Query page = db.collection(RankingSchema.COLLECTION_RANKINGS)
+                    .select(RankingSchema.FIELD_VERSION, RankingSchema.FIELD_COMPACT_SCORE, RankingSchema.FIELD_SCORE)
+                    .orderBy(FieldPath.documentId())
+                    .limit(PAGE_SIZE);
+            if (last != null) {
+                page = page.startAfter(last);
+            }
+            List<QueryDocumentSnapshot> documents = page.get().get().getDocuments();
+            if (documents.isEmpty()) {
+                break;
+            }
+            last = documents.get(documents.size() - 1);
+            for (QueryDocumentSnapshot document : documents) {
+                Integer score = RankingRecordCodec.scoreOf(document.getData());
+                if (score == null) {
+                    continue;
+                }
+                ScoreHistogram.addChange(shards.get(RankingSchema.histogramShard(document.getId())), null, score);
+                counted++;
+            }
+        }
+
+        CollectionReference shardRefs = db.collection(RankingSchema.COLLECTION_STATS)
+                .document(RankingSchema.DOC_HISTOGRAM).collection(RankingSchema.COLLECTION_SHARDS);
+        WriteBatch batch = db.batch();
+        for (Map.Entry<Integer, Map<String, Long>> shard : shards.entrySet()) {
+            // merge 없이 써서 음수가 된 칸과 없어진 점수의 칸도 지운다
+            batch.set(shardRefs.document(String.valueOf(shard.getKey())),
+                    Collections.<String, Object>singletonMap(RankingSchema.FIELD_BUCKETS, shard.getValue()));
+        }
+        batch.commit().get();
+        return counted;
+    }
+}
@@ -0,0 +1,148 @@
+package com.cookandroid.findcolorgame.compactor;
+
+import com.cookandroid.findcolorgame.core.ranking.RankEntry;
+import com.cookandroid.findcolorgame.core.ranking.RankingRecordCodec;
+import com.cookandroid.findcolorgame.core.ranking.RankingSchema;
+import com.cookandroid.findcolorgame.core.ranking.ScoreWritePlan;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FieldValue;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.Query;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.SetOptions;
+import com.google.cloud.firestore.Transaction;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * 1 판 랭킹 데이터를 2 판({v, s} 기록 + profiles/{uid})으로 한 번 옮긴다.
+ * <ol>
+ * <li>rankings 이름의 모든 컬렉션(전체 기간과 일간/주간 칸)에서 버전이 없는 기록을 2 판으로 바꿔 쓰고,
+ *     전체 기간 기록의 이름은 프로필로 옮긴다.</li>
+ * <li>ranking/totalRanking 의 entries 맵을 rankings/{uid} 로 옮긴다. 이미 더 높은 점수가 있으면 두고,
+ *     새로 들어가거나 올라간 점수만큼 점수 분포 샤드를 고친다. 프로필이 없을 때만 이름을 쓴다.
+ *     쓸 것은 앱의 점수 쓰기와 같은 ScoreWritePlan 이 정한다.</li>
+ * </ol>
+ * 모든 쓰기가 "더 높을 때만" 또는 "아직 1 판일 때만" 이라 여러 번 돌려도 같고, 앱이 점수를 쓰는 중에 돌려도 된다.
+ * 앱이 2 판 정렬 필드(s)로 읽기 전에 한 번 돌려야 한다. totalRanking 문서는 지우지 않는다.
+ */
+final class RankingMigrator {
+
+    // 트랜잭션 하나에서 다루는 기록 수. 기록, 프로필, 샤드 쓰기를 합쳐 500 을 넘지 않는다
+    private static final int CHUNK_SIZE = 100;
+
+    private final Firestore db;
+
+    RankingMigrator(Firestore db) {
+        this.db = db;
+    }
+
+    void migrate() throws ExecutionException, InterruptedException {
+        int rewritten = rewriteLegacyRecords();
+        System.out.println("rewrote " + rewritten + " version 1 ranking records");
+        int moved = moveLegacyEntries();
+        System.out.println("moved " + moved + " entries from " + RankingSchema.LEGACY_COLLECTION_RANKING + "/"
+                + RankingSchema.LEGACY_DOC_TOTAL);
+    }
+
+    /**
+     * @return 2 판으로 바꿔 쓴 기록 수
+     */
+    int rewriteLegacyRecords() throws ExecutionException, InterruptedException {
+        int rewritten = 0;
+        QueryDocumentSnapshot last = null;
+        while (true) {
+            Query page = db.collectionGroup(RankingSchema.COLLECTION_RANKINGS).limit(CHUNK_SIZE);
+            if (last != null) {
+                page = page.startAfter(last);
+            }
+            List<QueryDocumentSnapshot> documents = page.get().get().getDocuments();
+            if (documents.isEmpty()) {
+                return rewritten;
+            }
+            last = documents.get(documents.size() - 1);
+
+            List<DocumentReference> legacy = new ArrayList<>();
+            for (QueryDocumentSnapshot document : documents) {
+                if (!RankingRecordCodec.isCurrent(document.getData())) {
+                    legacy.add(document.getReference());
+                }
+            }
+            if (!legacy.isEmpty()) {
+                rewritten += db.runTransaction(transaction -> rewrite(transaction, legacy)).get();
+            }
+        }
+    }
+
+    private int rewrite(Transaction transaction, List<DocumentReference> refs)
+            throws ExecutionException, InterruptedException {
+        List<DocumentSnapshot> snapshots = transaction.getAll(refs.toArray(new DocumentReference[0])).get();
+        int rewritten = 0;
+        for (DocumentSnapshot snapshot : snapshots) {
+            Map<String, Object> fields = snapshot.getData();
+            Integer score = RankingRecordCodec.scoreOf(fields);
+            // 읽은 뒤에 앱이 2 판으로 이미 바꿔 썼거나 지웠으면 둔다
+            if (score == null || RankingRecordCodec.isCurrent(fields)) {
+                continue;
+            }
+            transaction.set(snapshot.getReference(), RankingRecordCodec.encodeRecord(score));
+            String name = RankingRecordCodec.legacyNameOf(fields);
+            if (name != null && isAllTime(snapshot.getReference())) {
+                transaction.set(profileRef(snapshot.getId()), RankingRecordCodec.encodeProfile(name));
+            }
+            rewritten++;
+        }
+        return rewritten;
+    }
+
+    /**
+     * @return 새로 들어가거나 점수가 오른 기록 수
+     */
+    int moveLegacyEntries() throws ExecutionException, InterruptedException {
+        DocumentSnapshot total = db.collection(RankingSchema.LEGACY_COLLECTION_RANKING)
+                .document(RankingSchema.LEGACY_DOC_TOTAL).get().get();
+        List<RankEntry> entries = RankingRecordCodec.decodeLegacyEntries(total.get(RankingSchema.FIELD_ENTRIES));
+        int moved = 0;
+        for (int from = 0; from < entries.size(); from += CHUNK_SIZE) {
+            List<RankEntry> chunk = entries.subList(from, Math.min(entries.size(), from + CHUNK_SIZE));
+            moved += db.runTransaction(transaction -> move(transaction, chunk)).get();
+        }
+        return moved;
+    }
+
+    private int move(Transaction transaction, List<RankEntry> chunk)
+            throws ExecutionException, InterruptedException {
+        ScoreWritePlan plan = ScoreWritePlan.forLegacyEntries(chunk);
+        List<String> paths = plan.readPaths();
+        DocumentReference[] refs = new DocumentReference[paths.size()];
+        for (int i = 0; i < refs.length; i++) {
+            refs[i] = db.document(paths.get(i));
+        }
+        Map<String, Map<String, Object>> current = new HashMap<>();
+        for (DocumentSnapshot snapshot : transaction.getAll(refs).get()) {
+            current.put(snapshot.getReference().getPath(), snapshot.getData());
+        }
+        plan.resolve(current);
+        for (Map.Entry<String, Map<String, Object>> set : plan.sets().entrySet()) {
+            transaction.set(db.document(set.getKey()), set.getValue());
+        }
+        for (Map.Entry<String, Map<String, Long>> shard : plan.shardDeltas().entrySet()) {
+            transaction.set(db.document(shard.getKey()),
+                    ScoreWritePlan.bucketIncrements(shard.getValue(), FieldValue::increment), SetOptions.merge());
+        }
+        return plan.raisedRecords();
+    }
+
+    private DocumentReference profileRef(String uid) {
+        return db.collection(RankingSchema.COLLECTION_PROFILES).document(uid);
+    }
+
+    private static boolean isAllTime(DocumentReference ref) {
+        return ref.getParent().getPath().equals(RankingSchema.COLLECTION_RANKINGS);
+    }
+}
@@ -0,0 +1,136 @@
+package com.cookandroid.findcolorgame.compactor;
+
+import com.cookandroid.findcolorgame.core.ranking.RankEntry;
+import com.cookandroid.findcolorgame.core.ranking.RankingRecordCodec;
+import com.cookandroid.findcolorgame.core.ranking.RankingSchema;
+import com.cookandroid.findcolorgame.core.ranking.TopSnapshotCodec;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FieldPath;
+import com.google.cloud.firestore.FieldValue;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.FirestoreOptions;
+import com.google.cloud.firestore.Query;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * rankings/{uid} 문서에서 상위 MATERIALIZED_TOP_N 명을 읽어 rankingStats/top100 문서 하나로 만든다.
+ * 앱의 랭킹 화면은 첫 페이지를 이 문서 한 번 읽기로 채운다.
+ * 사용자 문서 쓰기는 사용자마다 흩어져 있으므로 이 작업 하나만 top100 문서를 쓴다.
+ * 기록에는 점수만 있으므로 이름은 profiles/{uid} 에서 가져와 문서에 함께 넣는다.
+ * 같은 주기에 기간이 지난 일간/주간 칸도 WindowPruner 로 지운다.
+ *
+ * 인자: &lt;project-id&gt; [간격(초)]. 간격이 없거나 0 이면 한 번만 돌고 끝난다.
+ * &lt;project-id&gt; migrate 는 1 판 랭킹을 2 판으로 한 번 옮기고 점수 분포를 다시 센 뒤 끝난다
+ * (RankingMigrator, HistogramBackfill). &lt;project-id&gt; backfill-histogram 은 점수 분포만 다시 센다.
+ * FIRESTORE_EMULATOR_HOST 가 있으면 클라이언트 라이브러리가 에뮬레이터로 붙는다.
+ */
+public final class TopCompactor {
+
+    private final Firestore db;
+    private final DocumentReference topRef;
+    private List<RankEntry> lastScores; // 지난번에 쓴 순위 (이름 없이)
+
+    TopCompactor(Firestore db) {
+        this.db = db;
+        this.topRef = db.collection(RankingSchema.COLLECTION_STATS).document(RankingSchema.DOC_TOP);
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("usage: TopCompactor <project-id> [interval-seconds | migrate | backfill-histogram]");
+            System.exit(2);
+        }
+        Firestore db = FirestoreOptions.getDefaultInstance().toBuilder()
+                .setProjectId(args[0])
+                .build()
+                .getService();
+        if (args.length > 1 && args[1].equals("migrate")) {
+            new RankingMigrator(db).migrate();
+            backfillHistogram(db);
+            db.close();
+            return;
+        }
+        if (args.length > 1 && args[1].equals("backfill-histogram")) {
+            backfillHistogram(db);
+            db.close();
+            return;
+        }
+        long intervalSeconds = args.length > 1 ? Long.parseLong(args[1]) : 0;
+        TopCompactor compactor = new TopCompactor(db);
+        WindowPruner pruner = new WindowPruner(db);
+
+        if (intervalSeconds <= 0) {
+            compactor.compactOnce();
+            pruner.pruneOnce(System.currentTimeMillis());
+            db.close();
+            return;
+        }
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                compactor.compactOnce();
+                pruner.pruneOnce(System.currentTimeMillis());
+            } catch (Exception e) {
+                // 다음 주기에 다시 한다. 앱은 그동안 이전 문서를 읽는다
+                System.err.println("compaction failed: " + e);
+            }
+        }, 0, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    private static void backfillHistogram(Firestore db) throws ExecutionException, InterruptedException {
+        int counted = new HistogramBackfill(db).backfill();
+        System.out.println("histogram rebuilt from " + counted + " ranking records");
+    }
+
+    /**
+     * 상위 목록을 한 번 만든다. 순위가 지난번에 쓴 것과 같으면 프로필도 읽지 않고 끝난다.
+     * 이름만 바뀐 경우는 다음에 순위가 바뀔 때 반영된다.
+     *
+     * @return 문서를 새로 썼으면 true
+     */
+    boolean compactOnce() throws ExecutionException, InterruptedException {
+        List<QueryDocumentSnapshot> documents = db.collection(RankingSchema.COLLECTION_RANKINGS)
+                .orderBy(RankingSchema.FIELD_COMPACT_SCORE, Query.Direction.DESCENDING)
+                .orderBy(FieldPath.documentId())
+                .limit(RankingSchema.MATERIALIZED_TOP_N)
+                .get().get().getDocuments();
+
+        List<RankEntry> scores = new ArrayList<>(documents.size());
+        DocumentReference[] profileRefs = new DocumentReference[documents.size()];
+        for (int i = 0; i < documents.size(); i++) {
+            QueryDocumentSnapshot document = documents.get(i);
+            Integer score = RankingRecordCodec.scoreOf(document.getData());
+            scores.add(new RankEntry(document.getId(), null, score != null ? score : 0));
+            profileRefs[i] = db.collection(RankingSchema.COLLECTION_PROFILES).document(document.getId());
+        }
+        if (scores.equals(lastScores)) {
+            return false;
+        }
+
+        List<RankEntry> top = new ArrayList<>(scores.size());
+        List<DocumentSnapshot> profiles = profileRefs.length == 0
+                ? new ArrayList<>() : db.getAll(profileRefs).get();
+        for (int i = 0; i < scores.size(); i++) {
+            RankEntry entry = scores.get(i);
+            top.add(new RankEntry(entry.getUid(), RankingRecordCodec.profileNameOf(profiles.get(i).getData()),
+                    entry.getScore()));
+        }
+
+        Map<String, Object> data = new HashMap<>(TopSnapshotCodec.encode(top));
+        data.put(RankingSchema.FIELD_UPDATED_AT, FieldValue.serverTimestamp());
+        topRef.set(data).get();
+        lastScores = scores;
+        System.out.println("top" + RankingSchema.MATERIALIZED_TOP_N + " rewritten with " + top.size() + " entries");
+        return true;
+    }
+}
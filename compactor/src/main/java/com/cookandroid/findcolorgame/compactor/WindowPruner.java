@@ -0,0 +1,60 @@
+package com.cookandroid.findcolorgame.compactor;
+
+import com.cookandroid.findcolorgame.core.ranking.LeaderboardWindow;
+import com.cookandroid.findcolorgame.core.ranking.RankingSchema;
+import com.google.cloud.firestore.CollectionReference;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.WriteBatch;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * 남겨 둘 기간이 지난 일간/주간 칸(leaderboards/{bucket})의 문서를 지운다.
+ * 앱은 현재 칸만 읽으므로 지운 칸이 화면에 영향을 주지 않는다.
+ */
+final class WindowPruner {
+
+    // Firestore 쓰기 묶음 하나에 넣을 수 있는 최대 작업 수
+    private static final int DELETE_BATCH_SIZE = 500;
+
+    private final Firestore db;
+
+    WindowPruner(Firestore db) {
+        this.db = db;
+    }
+
+    /**
+     * @return 지운 칸 수
+     */
+    int pruneOnce(long nowMillis) throws ExecutionException, InterruptedException {
+        int pruned = 0;
+        // 칸 문서 자체는 없고 하위 컬렉션만 있지만 listDocuments 는 그런 문서도 돌려준다
+        for (DocumentReference bucket : db.collection(RankingSchema.COLLECTION_LEADERBOARDS).listDocuments()) {
+            LeaderboardWindow window = LeaderboardWindow.ofBucketKey(bucket.getId());
+            if (window == null || !window.isExpired(bucket.getId(), nowMillis)) {
+                continue;
+            }
+            deleteAll(bucket.collection(RankingSchema.COLLECTION_RANKINGS));
+            pruned++;
+            System.out.println("pruned " + bucket.getPath());
+        }
+        return pruned;
+    }
+
+    private void deleteAll(CollectionReference collection) throws ExecutionException, InterruptedException {
+        while (true) {
+            List<QueryDocumentSnapshot> documents = collection.limit(DELETE_BATCH_SIZE).get().get().getDocuments();
+            if (documents.isEmpty()) {
+                return;
+            }
+            WriteBatch batch = db.batch();
+            for (QueryDocumentSnapshot document : documents) {
+                batch.delete(document.getReference());
+            }
+            batch.commit().get();
+        }
+    }
+}
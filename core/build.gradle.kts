@@ -0,0 +1,50 @@
+plugins {
+    `java-library`
+    // 저장소 계약 테스트(src/testFixtures/java)를 앱의 계측 테스트와 함께 쓴다
+    `java-test-fixtures`
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_1_8
+    targetCompatibility = JavaVersion.VERSION_1_8
+}
+
+// JMH 벤치마크 전용 소스셋 (src/jmh/java). 안드로이드 없이 일반 JVM 에서 실행된다.
+sourceSets {
+    create("jmh") {
+        compileClasspath += sourceSets.main.get().output
+        runtimeClasspath += sourceSets.main.get().output
+    }
+}
+
+dependencies {
+    testImplementation(libs.junit)
+    testFixturesImplementation(libs.junit)
+
+    "jmhImplementation"(libs.jmh.core)
+    "jmhAnnotationProcessor"(libs.jmh.generator.annprocess)
+}
+
+tasks.withType<JavaCompile>().configureEach {
+    options.encoding = "UTF-8"
+}
+
+// ./gradlew :core:jmh            -> 전체 벤치마크
+// ./gradlew :core:jmh -Pjmh=Tile -> 이름에 Tile 이 들어간 벤치마크만
+// 처리량과 함께 GC 프로파일러로 gc.alloc.rate.norm(연산당 할당 바이트)을 기록한다.
+tasks.register<JavaExec>("jmh") {
+    group = "benchmark"
+    description = "Runs the JMH benchmarks with the GC profiler."
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass.set("org.openjdk.jmh.Main")
+    jvmArgs("-Djava.awt.headless=true")
+
+    val resultFile = layout.buildDirectory.file("reports/jmh/results.json")
+    outputs.file(resultFile)
+    outputs.upToDateWhen { false }
+    doFirst {
+        resultFile.get().asFile.parentFile.mkdirs()
+    }
+    args("-prof", "gc", "-rf", "json", "-rff", resultFile.get().asFile.absolutePath)
+    findProperty("jmh")?.let { args(it.toString()) }
+}
@@ -0,0 +1,86 @@
+package com.cookandroid.findcolorgame.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GameActivity.setupGrid 가 스테이지마다 하던 계산을 격자 크기별로 측정한다.
+ * 보드는 activity_game.xml 의 480dp x 450dp 를 xxhdpi(2.75) 로 환산한 크기다.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StageGeneratorBenchmark {
+
+    private static final int BOARD_WIDTH = 1320;
+    private static final int BOARD_HEIGHT = 1238;
+    private static final int SPACING = 8;
+
+    @Param({"4", "8", "16", "32", "64"})
+    public int gridSize;
+
+    private StageGenerator stageGenerator;
+    private Random random;
+    private Stage stage;
+    private int tileSize;
+
+    @Setup
+    public void setUp() {
+        random = new Random(42);
+        stageGenerator = new StageGenerator(new Random(42));
+        stage = new Stage();
+        tileSize = BoardLayout.tileSize(BOARD_WIDTH, BOARD_HEIGHT, gridSize, SPACING);
+    }
+
+    /** 보드 한 장 전체 (타일 크기, 정답 위치, 색상, 색상 배열 채우기). */
+    @Benchmark
+    public boolean generateStage() {
+        return stageGenerator.generate(1, gridSize, BOARD_WIDTH, BOARD_HEIGHT, SPACING, stage);
+    }
+
+    @Benchmark
+    public int pickOddIndex() {
+        return stageGenerator.pickOddIndex(gridSize, tileSize, SPACING, BOARD_WIDTH, BOARD_HEIGHT);
+    }
+
+    /** 모든 타일에 대해 isTileOverflowing 을 한 번씩 검사. */
+    @Benchmark
+    public int overflowScan() {
+        int overflowing = 0;
+        int totalTiles = gridSize * gridSize;
+        for (int i = 0; i < totalTiles; i++) {
+            if (BoardLayout.isTileOverflowing(i, gridSize, tileSize, SPACING, BOARD_WIDTH, BOARD_HEIGHT)) {
+                overflowing++;
+            }
+        }
+        return overflowing;
+    }
+
+    @Benchmark
+    public void colors(Blackhole blackhole) {
+        int baseColor = ColorUtils.generateRandomColor(random);
+        blackhole.consume(baseColor);
+        blackhole.consume(ColorUtils.darkenColor(baseColor));
+    }
+
+    @Benchmark
+    public int tileSize() {
+        return BoardLayout.tileSize(BOARD_WIDTH, BOARD_HEIGHT, gridSize, SPACING);
+    }
+}
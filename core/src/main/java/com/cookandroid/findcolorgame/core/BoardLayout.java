@@ -0,0 +1,37 @@
+package com.cookandroid.findcolorgame.core;
+
+/**
+ * 보드 크기(px)와 격자 크기로부터 타일 크기와 위치를 계산한다.
+ */
+public final class BoardLayout {
+
+    private BoardLayout() {
+    }
+
+    /**
+     * 정사각형 타일 한 변의 길이. 0 이하이면 이 격자 크기는 보드에 들어가지 않는다.
+     */
+    public static int tileSize(int boardWidth, int boardHeight, int gridSize, int spacing) {
+        // Calculate the available width and height for tiles
+        int availableWidth = boardWidth - spacing * (gridSize + 1);
+        int availableHeight = boardHeight - spacing * (gridSize + 1);
+
+        // Calculate the size of each tile to ensure they are square and fit within the layout
+        return Math.min(availableWidth, availableHeight) / gridSize;
+    }
+
+    public static boolean isTileOverflowing(int tileIndex, int gridSize, int tileSize, int spacing,
+                                            int boardWidth, int boardHeight) {
+        int row = tileIndex / gridSize;
+        int col = tileIndex % gridSize;
+
+        // Calculate the position of the tile
+        int leftEdge = col * (tileSize + spacing);
+        int topEdge = row * (tileSize + spacing);
+        int rightEdge = leftEdge + tileSize;
+        int bottomEdge = topEdge + tileSize;
+
+        // Check if the tile exceeds the layout bounds
+        return rightEdge > boardWidth || bottomEdge > boardHeight;
+    }
+}
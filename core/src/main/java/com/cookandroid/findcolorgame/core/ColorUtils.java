@@ -0,0 +1,42 @@
+package com.cookandroid.findcolorgame.core;
+
+import java.util.Random;
+
+/**
+ * android.graphics.Color 없이 0xAARRGGBB 로 묶인 int 색상을 다룬다.
+ */
+public final class ColorUtils {
+
+    private ColorUtils() {
+    }
+
+    public static int rgb(int red, int green, int blue) {
+        return 0xFF000000 | (red << 16) | (green << 8) | blue;
+    }
+
+    public static int red(int color) {
+        return (color >> 16) & 0xFF;
+    }
+
+    public static int green(int color) {
+        return (color >> 8) & 0xFF;
+    }
+
+    public static int blue(int color) {
+        return color & 0xFF;
+    }
+
+    public static int generateRandomColor(Random random) {
+        int red = random.nextInt(156) + 100; // Bright colors
+        int green = random.nextInt(156) + 100;
+        int blue = random.nextInt(156) + 100;
+        return rgb(red, green, blue);
+    }
+
+    public static int darkenColor(int color) {
+        int red = (int) (red(color) * 0.8); // 20% darker
+        int green = (int) (green(color) * 0.8);
+        int blue = (int) (blue(color) * 0.8);
+        return rgb(red, green, blue);
+    }
+}
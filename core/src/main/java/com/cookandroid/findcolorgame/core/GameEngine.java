@@ -0,0 +1,149 @@
+package com.cookandroid.findcolorgame.core;
+
+import java.util.concurrent.Executor;
+
+/**
+ * 스테이지 진행 규칙. 화면은 getStage() 의 결과만 그린다.
+ */
+public class GameEngine {
+
+    public static final int INITIAL_GRID_SIZE = 4;
+
+    private final GridFitSolver gridFitSolver;
+    private final StagePrefetcher stagePrefetcher;
+    private Stage stage = new Stage();
+
+    private int currentStage = 1;
+    private int gridSize = INITIAL_GRID_SIZE;
+
+    // restore() 로 받은 보드. 다음 buildStage 에서 새로 만들지 않고 그대로 쓴다
+    private boolean restorePending;
+    private int restoredOddIndex;
+    private int restoredBaseColor;
+
+    public GameEngine() {
+        this(new StageGenerator());
+    }
+
+    public GameEngine(StageGenerator stageGenerator) {
+        this(stageGenerator, GridFitSolver.shared());
+    }
+
+    public GameEngine(StageGenerator stageGenerator, GridFitSolver gridFitSolver) {
+        this(stageGenerator, gridFitSolver, Runnable::run);
+    }
+
+    /**
+     * @param prefetchExecutor 다음 스테이지 보드를 미리 만들 스레드. 보통 단일 백그라운드 스레드.
+     */
+    public GameEngine(StageGenerator stageGenerator, GridFitSolver gridFitSolver, Executor prefetchExecutor) {
+        this.gridFitSolver = gridFitSolver;
+        this.stagePrefetcher = new StagePrefetcher(stageGenerator, prefetchExecutor);
+    }
+
+    public boolean buildStage(int boardWidth, int boardHeight, int spacing) {
+        return buildStage(boardWidth, boardHeight, 1f, spacing);
+    }
+
+    /**
+     * 현재 스테이지의 보드를 만든다. 격자가 보드에 들어가지 않으면 들어가는 가장 큰 크기로 줄인다.
+     * 미리 만들어 둔 보드가 있으면 그것을 쓰고, 곧바로 다음 스테이지 보드를 미리 만들기 시작한다.
+     *
+     * @return 보드를 만들지 못했으면(격자 1칸도 안 들어감) false
+     */
+    public boolean buildStage(int boardWidth, int boardHeight, float density, int spacing) {
+        GridFitSolver.Fit fit = gridFitSolver.fit(boardWidth, boardHeight, density, spacing);
+        if (fit.getMaxGridSize() == 0) {
+            return false;
+        }
+        int requestedGridSize = gridSize;
+        gridSize = fit.clampGridSize(gridSize); // Reduce grid size if tiles exceed layout bounds
+        int tileSize = fit.tileSize(gridSize);
+
+        Stage next = null;
+        if (restorePending) {
+            restorePending = false;
+            if (gridSize == requestedGridSize && !BoardLayout.isTileOverflowing(restoredOddIndex, gridSize,
+                    tileSize, spacing, boardWidth, boardHeight)) {
+                next = stagePrefetcher.restore(currentStage, gridSize, tileSize, restoredOddIndex, restoredBaseColor);
+            }
+        }
+        if (next == null) {
+            next = stagePrefetcher.take(currentStage, gridSize, tileSize, boardWidth, boardHeight, spacing);
+        }
+        if (next == null) {
+            return false;
+        }
+        stage = next;
+
+        // 다음 보드는 탭 결과와 상관없이 스테이지 번호로만 정해진다
+        int nextGridSize = fit.clampGridSize(gridSize + 1);
+        stagePrefetcher.prefetch(currentStage + 1, nextGridSize, fit.tileSize(nextGridSize),
+                boardWidth, boardHeight, spacing);
+        return true;
+    }
+
+    /**
+     * 화면이 다시 만들어졌을 때 현재 보드를 새 보드 크기에 맞춘다. 타일 크기가 그대로면 아무것도 하지
+     * 않고, 달라졌으면 같은 정답 위치와 색상으로 다시 채운다.
+     */
+    public boolean relayout(int boardWidth, int boardHeight, float density, int spacing) {
+        if (hasStage() && stage.stageNumber == currentStage
+                && gridFitSolver.fit(boardWidth, boardHeight, density, spacing).tileSize(stage.gridSize)
+                == stage.tileSize) {
+            return true;
+        }
+        if (hasStage()) {
+            restore(currentStage, stage.gridSize, stage.oddIndex, stage.baseColor);
+        }
+        return buildStage(boardWidth, boardHeight, density, spacing);
+    }
+
+    /**
+     * 저장해 둔 진행 상태로 되돌린다. 보드는 다음 buildStage() 에서 난수 없이 그대로 다시 채워진다.
+     */
+    public void restore(int stageNumber, int gridSize, int oddIndex, int baseColor) {
+        this.currentStage = stageNumber;
+        this.gridSize = gridSize;
+        this.restoredOddIndex = oddIndex;
+        this.restoredBaseColor = baseColor;
+        this.restorePending = true;
+    }
+
+    /**
+     * 현재 스테이지 보드가 만들어져 있는지.
+     */
+    public boolean hasStage() {
+        return stage.gridSize > 0;
+    }
+
+    public boolean isOddTile(int tileIndex) {
+        return tileIndex == stage.oddIndex;
+    }
+
+    /**
+     * 정답 타일을 눌렀을 때 다음 스테이지로 넘어간다.
+     */
+    public void advance() {
+        currentStage++;
+        gridSize++;
+    }
+
+    public void reset() {
+        currentStage = 1;
+        gridSize = INITIAL_GRID_SIZE;
+        restorePending = false;
+    }
+
+    public int getCurrentStage() {
+        return currentStage;
+    }
+
+    public int getGridSize() {
+        return gridSize;
+    }
+
+    public Stage getStage() {
+        return stage;
+    }
+}
@@ -0,0 +1,124 @@
+package com.cookandroid.findcolorgame.core;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 측정된 보드에 들어가는 가장 큰 격자 크기와 격자별 타일 크기를 한 번에 계산한다.
+ * 결과는 (width, height, density, spacing) 별로 캐시되므로 다음 스테이지나 화면 회전 후에도
+ * 시험 배치 없이 재사용된다.
+ */
+public class GridFitSolver {
+
+    private static final int MAX_CACHED_BOARDS = 8;
+
+    private static final GridFitSolver SHARED = new GridFitSolver();
+
+    /**
+     * 프로세스 전체에서 공유하는 인스턴스. 액티비티가 다시 만들어져도 캐시가 유지된다.
+     */
+    public static GridFitSolver shared() {
+        return SHARED;
+    }
+
+    private final Map<Key, Fit> cache = new LinkedHashMap<Key, Fit>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Fit> eldest) {
+            return size() > MAX_CACHED_BOARDS;
+        }
+    };
+
+    public synchronized Fit fit(int boardWidth, int boardHeight, float density, int spacing) {
+        Key key = new Key(boardWidth, boardHeight, density, spacing);
+        Fit fit = cache.get(key);
+        if (fit == null) {
+            fit = solve(boardWidth, boardHeight, spacing);
+            cache.put(key, fit);
+        }
+        return fit;
+    }
+
+    static Fit solve(int boardWidth, int boardHeight, int spacing) {
+        int shortSide = Math.min(boardWidth, boardHeight);
+        // tileSize = (shortSide - spacing * (n + 1)) / n >= 1  <=>  n <= (shortSide - spacing) / (spacing + 1)
+        int maxGridSize = Math.max(0, (shortSide - spacing) / (spacing + 1));
+
+        int[] tileSizes = new int[maxGridSize + 1];
+        for (int n = 1; n <= maxGridSize; n++) {
+            tileSizes[n] = BoardLayout.tileSize(boardWidth, boardHeight, n, spacing);
+        }
+        return new Fit(maxGridSize, tileSizes);
+    }
+
+    /**
+     * 한 보드에 대한 계산 결과. 만들어진 뒤에는 바뀌지 않는다.
+     */
+    public static final class Fit {
+
+        private final int maxGridSize;
+        private final int[] tileSizes;
+
+        Fit(int maxGridSize, int[] tileSizes) {
+            this.maxGridSize = maxGridSize;
+            this.tileSizes = tileSizes;
+        }
+
+        /**
+         * 보드에 들어가는 가장 큰 격자 크기. 0 이면 어떤 격자도 들어가지 않는다.
+         */
+        public int getMaxGridSize() {
+            return maxGridSize;
+        }
+
+        /**
+         * 원하는 격자 크기를 보드에 들어가는 크기로 줄인다.
+         */
+        public int clampGridSize(int requested) {
+            return Math.min(requested, maxGridSize);
+        }
+
+        public int tileSize(int gridSize) {
+            if (gridSize <= 0 || gridSize > maxGridSize) {
+                return 0;
+            }
+            return tileSizes[gridSize];
+        }
+    }
+
+    private static final class Key {
+
+        final int width;
+        final int height;
+        final float density;
+        final int spacing;
+
+        Key(int width, int height, float density, int spacing) {
+            this.width = width;
+            this.height = height;
+            this.density = density;
+            this.spacing = spacing;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return width == other.width && height == other.height
+                    && Float.compare(density, other.density) == 0 && spacing == other.spacing;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = width;
+            result = 31 * result + height;
+            result = 31 * result + Float.floatToIntBits(density);
+            result = 31 * result + spacing;
+            return result;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.cookandroid.findcolorgame.core;
+
+import java.util.Arrays;
+
+/**
+ * 한 스테이지의 보드. colors 버퍼는 격자가 커질 때만 새로 할당하고 그 외에는 재사용한다.
+ */
+public final class Stage {
+
+    int stageNumber;
+    int gridSize;
+    int tileSize;
+    int oddIndex;
+    int baseColor;
+    int oddColor;
+    int[] colors = new int[0];
+
+    public int getStageNumber() {
+        return stageNumber;
+    }
+
+    public int getGridSize() {
+        return gridSize;
+    }
+
+    public int getTileSize() {
+        return tileSize;
+    }
+
+    public int getTotalTiles() {
+        return gridSize * gridSize;
+    }
+
+    public int getOddIndex() {
+        return oddIndex;
+    }
+
+    public int getBaseColor() {
+        return baseColor;
+    }
+
+    public int getOddColor() {
+        return oddColor;
+    }
+
+    /**
+     * 타일 색상 배열. 길이가 getTotalTiles() 보다 길 수 있으므로 앞부분만 유효하다.
+     */
+    public int[] getColors() {
+        return colors;
+    }
+
+    /**
+     * 정답 위치와 기본 색상으로 보드를 채운다. 난수를 쓰지 않으므로 저장된 상태를 그대로 되살릴 때도 쓴다.
+     */
+    void fill(int stageNumber, int gridSize, int tileSize, int oddIndex, int baseColor) {
+        int totalTiles = gridSize * gridSize;
+        this.stageNumber = stageNumber;
+        this.gridSize = gridSize;
+        this.tileSize = tileSize;
+        this.oddIndex = oddIndex;
+        this.baseColor = baseColor;
+        this.oddColor = ColorUtils.darkenColor(baseColor);
+        ensureCapacity(totalTiles);
+        Arrays.fill(colors, 0, totalTiles, baseColor);
+        colors[oddIndex] = oddColor;
+    }
+
+    void ensureCapacity(int totalTiles) {
+        colors = TileBuffers.ensureCapacity(colors, totalTiles);
+    }
+}
@@ -0,0 +1,69 @@
+package com.cookandroid.findcolorgame.core;
+
+import java.util.Random;
+
+/**
+ * 스테이지 번호와 보드 크기를 받아 타일 색상과 정답 타일을 만든다.
+ */
+public class StageGenerator {
+
+    private final Random random;
+    private final VisibleCells visibleCells = new VisibleCells();
+
+    public StageGenerator() {
+        this(new Random());
+    }
+
+    public StageGenerator(Random random) {
+        this.random = random;
+    }
+
+    /**
+     * into 를 채운다. 격자가 보드에 들어가지 않거나(타일 크기 0 이하) 완전히 보이는 타일이
+     * 하나도 없으면 false 를 돌려준다.
+     */
+    public boolean generate(int stageNumber, int gridSize, int boardWidth, int boardHeight, int spacing,
+                            Stage into) {
+        int tileSize = BoardLayout.tileSize(boardWidth, boardHeight, gridSize, spacing);
+        return generate(stageNumber, gridSize, tileSize, boardWidth, boardHeight, spacing, into);
+    }
+
+    /**
+     * 타일 크기를 이미 알고 있을 때(GridFitSolver 결과) 쓰는 버전.
+     */
+    public boolean generate(int stageNumber, int gridSize, int tileSize, int boardWidth, int boardHeight,
+                            int spacing, Stage into) {
+        if (tileSize <= 0) {
+            return false;
+        }
+        visibleCells.update(gridSize, tileSize, spacing, boardWidth, boardHeight);
+        if (visibleCells.count() == 0) {
+            return false;
+        }
+
+        int oddIndex = visibleCells.sample(random);
+        int baseColor = ColorUtils.generateRandomColor(random);
+
+        into.fill(stageNumber, gridSize, tileSize, oddIndex, baseColor);
+        return true;
+    }
+
+    /**
+     * 보드 밖으로 넘치지 않는 위치 중에서 정답 타일 인덱스를 고른다.
+     * 보이는 타일 집합은 배치가 바뀔 때만 다시 계산하고, 고르는 것은 난수 한 번이다.
+     *
+     * @throws IllegalStateException 보이는 타일이 하나도 없을 때
+     */
+    public int pickOddIndex(int gridSize, int tileSize, int spacing, int boardWidth, int boardHeight) {
+        visibleCells.update(gridSize, tileSize, spacing, boardWidth, boardHeight);
+        return visibleCells.sample(random);
+    }
+
+    /**
+     * 이 배치에서 정답 타일을 둘 수 있는 칸 수. 0 이면 만들 수 없는 보드다.
+     */
+    public int visibleTileCount(int gridSize, int tileSize, int spacing, int boardWidth, int boardHeight) {
+        visibleCells.update(gridSize, tileSize, spacing, boardWidth, boardHeight);
+        return visibleCells.count();
+    }
+}
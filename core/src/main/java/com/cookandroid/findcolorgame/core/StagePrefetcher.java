@@ -0,0 +1,114 @@
+package com.cookandroid.findcolorgame.core;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+/**
+ * 다음 스테이지 보드를 미리 만들어 둔다.
+ * 보드는 스테이지 번호와 보드 크기에만 의존하므로, 플레이어가 N 스테이지를 푸는 동안 N+1 을
+ * 백그라운드에서 만들고 정답을 누르면 버퍼만 바꾼다.
+ *
+ * <p>Stage 버퍼 두 개를 번갈아 쓴다. take() 로 받은 버퍼는 다음 take() 전까지 바뀌지 않는다.
+ * prefetch()/take() 는 한 스레드(보통 메인 스레드)에서만 호출해야 한다.
+ */
+public class StagePrefetcher {
+
+    private final StageGenerator stageGenerator;
+    private final Executor executor;
+
+    private final Stage[] buffers = {new Stage(), new Stage()};
+    private int front;
+
+    private FutureTask<Boolean> pending;
+    private int pendingStage;
+    private int pendingGridSize;
+    private int pendingTileSize;
+    private int pendingWidth;
+    private int pendingHeight;
+    private int pendingSpacing;
+
+    public StagePrefetcher(StageGenerator stageGenerator, Executor executor) {
+        this.stageGenerator = stageGenerator;
+        this.executor = executor;
+    }
+
+    /**
+     * 현재 화면에 없는 버퍼에 다음 보드를 만들기 시작한다.
+     */
+    public void prefetch(final int stageNumber, final int gridSize, final int tileSize,
+                         final int boardWidth, final int boardHeight, final int spacing) {
+        awaitPending(); // StageGenerator 는 한 번에 한 스레드에서만 쓴다
+        final Stage target = buffers[1 - front];
+
+        pendingStage = stageNumber;
+        pendingGridSize = gridSize;
+        pendingTileSize = tileSize;
+        pendingWidth = boardWidth;
+        pendingHeight = boardHeight;
+        pendingSpacing = spacing;
+        pending = new FutureTask<>(() ->
+                stageGenerator.generate(stageNumber, gridSize, tileSize, boardWidth, boardHeight, spacing, target));
+        executor.execute(pending);
+    }
+
+    /**
+     * 요청한 보드를 돌려준다. 미리 만든 보드가 맞으면 버퍼만 바꾸고, 아니면(다시 시작, 보드 크기 변경)
+     * 그 자리에서 만든다.
+     *
+     * @return 보드를 만들 수 없으면 null
+     */
+    public Stage take(int stageNumber, int gridSize, int tileSize, int boardWidth, int boardHeight, int spacing) {
+        boolean ready;
+        if (pending != null && pendingStage == stageNumber && pendingGridSize == gridSize
+                && pendingTileSize == tileSize && pendingWidth == boardWidth
+                && pendingHeight == boardHeight && pendingSpacing == spacing) {
+            ready = awaitPending();
+        } else {
+            awaitPending();
+            ready = stageGenerator.generate(stageNumber, gridSize, tileSize, boardWidth, boardHeight, spacing,
+                    buffers[1 - front]);
+        }
+        if (!ready) {
+            return null;
+        }
+        front = 1 - front;
+        return buffers[front];
+    }
+
+    /**
+     * 저장해 둔 보드를 난수 없이 그대로 되살린다. 미리 만들던 보드는 버린다.
+     */
+    public Stage restore(int stageNumber, int gridSize, int tileSize, int oddIndex, int baseColor) {
+        awaitPending();
+        Stage target = buffers[1 - front];
+        target.fill(stageNumber, gridSize, tileSize, oddIndex, baseColor);
+        front = 1 - front;
+        return target;
+    }
+
+    /**
+     * 진행 중인 prefetch 가 있으면 끝날 때까지 기다린다.
+     *
+     * @return 그 prefetch 가 보드를 만들었는지
+     */
+    private boolean awaitPending() {
+        FutureTask<Boolean> task = pending;
+        if (task == null) {
+            return false;
+        }
+        pending = null;
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.cookandroid.findcolorgame.core;
+
+/**
+ * 스테이지마다 한 행, 한 열씩 커지는 타일 버퍼를 위한 도우미.
+ */
+public final class TileBuffers {
+
+    private TileBuffers() {
+    }
+
+    /**
+     * buffer 가 required 칸을 담을 수 있으면 그대로 돌려주고, 아니면 두 배 이상 큰 새 배열을 돌려준다.
+     * 내용은 복사하지 않는다(호출한 쪽이 매번 다시 채운다). 격자가 커질 때마다 새로 할당하지 않고
+     * 몇 스테이지에 한 번만 할당하게 된다.
+     */
+    public static int[] ensureCapacity(int[] buffer, int required) {
+        if (buffer.length >= required) {
+            return buffer;
+        }
+        return new int[Math.max(required, buffer.length * 2)];
+    }
+}
@@ -0,0 +1,77 @@
+package com.cookandroid.findcolorgame.core;
+
+import java.util.Random;
+
+/**
+ * 보드 안에 완전히 보이는 타일들의 집합.
+ * 타일이 넘치는 것은 오른쪽 열과 아래쪽 행뿐이므로 보이는 타일은 항상 왼쪽 위의 직사각형
+ * (visibleRows x visibleCols) 이다. 배치가 바뀔 때 한 번 계산해 두고 O(1) 로 뽑는다.
+ */
+public final class VisibleCells {
+
+    private int gridSize;
+    private int tileSize;
+    private int spacing;
+    private int boardWidth;
+    private int boardHeight;
+
+    private int visibleRows;
+    private int visibleCols;
+
+    /**
+     * 배치가 이전과 같으면 아무것도 하지 않는다.
+     */
+    public void update(int gridSize, int tileSize, int spacing, int boardWidth, int boardHeight) {
+        if (gridSize == this.gridSize && tileSize == this.tileSize && spacing == this.spacing
+                && boardWidth == this.boardWidth && boardHeight == this.boardHeight) {
+            return;
+        }
+        this.gridSize = gridSize;
+        this.tileSize = tileSize;
+        this.spacing = spacing;
+        this.boardWidth = boardWidth;
+        this.boardHeight = boardHeight;
+
+        visibleCols = visibleLines(gridSize, tileSize, spacing, boardWidth);
+        visibleRows = visibleLines(gridSize, tileSize, spacing, boardHeight);
+    }
+
+    /**
+     * BoardLayout.isTileOverflowing 과 같은 기준으로, 한 축에서 끝까지 들어가는 칸 수.
+     */
+    private static int visibleLines(int gridSize, int tileSize, int spacing, int boardLength) {
+        if (gridSize <= 0 || tileSize <= 0 || boardLength < tileSize) {
+            return 0;
+        }
+        // n 번째 칸의 끝 = n * (tileSize + spacing) + tileSize <= boardLength
+        return Math.min(gridSize, (boardLength - tileSize) / (tileSize + spacing) + 1);
+    }
+
+    public int count() {
+        return visibleRows * visibleCols;
+    }
+
+    public int getVisibleRows() {
+        return visibleRows;
+    }
+
+    public int getVisibleCols() {
+        return visibleCols;
+    }
+
+    /**
+     * 보이는 타일 하나를 균등하게 골라 전체 격자 기준 인덱스로 돌려준다. 난수는 한 번만 뽑는다.
+     *
+     * @throws IllegalStateException 보이는 타일이 없을 때
+     */
+    public int sample(Random random) {
+        int count = count();
+        if (count == 0) {
+            throw new IllegalStateException("No fully visible tile on a " + gridSize + "x" + gridSize + " board");
+        }
+        int cell = random.nextInt(count);
+        int row = cell / visibleCols;
+        int col = cell % visibleCols;
+        return row * gridSize + col;
+    }
+}
@@ -0,0 +1,14 @@
+package com.cookandroid.findcolorgame.core.ranking;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 전체 기간 랭킹 저장소. 점수 분포는 전체 기간에만 모으므로 일간/주간 칸 저장소는 이 타입이 아니다.
+ */
+public interface AllTimeRankingRepository extends RankingRepository {
+
+    /**
+     * 점수 분포 문서를 읽는다. 순위와 백분위는 여기서 바로 계산한다.
+     */
+    CompletableFuture<ScoreHistogram> histogram();
+}
@@ -0,0 +1,29 @@
+package com.cookandroid.findcolorgame.core.ranking;
+
+import java.util.Random;
+
+/**
+ * 지수 백오프 + 전체 지터(full jitter). attempt 번째 재시도는 [0, min(cap, base * 2^attempt)] 에서 고른다.
+ */
+public class Backoff {
+
+    private final long baseMillis;
+    private final long capMillis;
+    private final Random random;
+
+    public Backoff(long baseMillis, long capMillis) {
+        this(baseMillis, capMillis, new Random());
+    }
+
+    public Backoff(long baseMillis, long capMillis, Random random) {
+        this.baseMillis = baseMillis;
+        this.capMillis = capMillis;
+        this.random = random;
+    }
+
+    public long delayMillis(int attempt) {
+        // base * 2^attempt 가 cap 을 넘거나 long 범위를 벗어나면 cap 으로 자른다
+        long ceiling = attempt < 63 && baseMillis <= (capMillis >> attempt) ? baseMillis << attempt : capMillis;
+        return (long) (random.nextDouble() * (ceiling + 1));
+    }
+}
@@ -0,0 +1,57 @@
+package com.cookandroid.findcolorgame.core.ranking;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Firestore 문서 크기 계산 규칙(문서 이름 + 필드 이름 + 값 + 32 바이트)에 따른 바이트 수.
+ * 부하 측정(:loadtest)의 연산당 바이트와 랭킹 형식별 줄 크기 비교에 같은 기준으로 쓴다.
+ */
+public final class DocumentSizes {
+
+    private DocumentSizes() {
+    }
+
+    public static long documentSize(String path, Map<String, ?> fields) {
+        long size = 16;
+        for (String segment : path.split("/")) {
+            size += stringSize(segment);
+        }
+        return size + mapSize(fields) + 32;
+    }
+
+    public static long valueSize(Object value) {
+        if (value == null || value instanceof Boolean) {
+            return 1;
+        }
+        if (value instanceof String) {
+            return stringSize((String) value);
+        }
+        if (value instanceof Map) {
+            @SuppressWarnings("unchecked")
+            Map<String, ?> map = (Map<String, ?>) value;
+            return mapSize(map);
+        }
+        if (value instanceof List) {
+            long size = 0;
+            for (Object element : (List<?>) value) {
+                size += valueSize(element);
+            }
+            return size;
+        }
+        return 8; // 정수, 실수, 타임스탬프, 증감 연산
+    }
+
+    private static long mapSize(Map<String, ?> map) {
+        long size = 0;
+        for (Map.Entry<String, ?> field : map.entrySet()) {
+            size += stringSize(field.getKey()) + valueSize(field.getValue());
+        }
+        return size;
+    }
+
+    private static long stringSize(String value) {
+        return value.getBytes(StandardCharsets.UTF_8).length + 1;
+    }
+}
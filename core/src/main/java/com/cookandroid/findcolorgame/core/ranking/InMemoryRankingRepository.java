@@ -0,0 +1,178 @@
+package com.cookandroid.findcolorgame.core.ranking;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 메모리에만 두는 랭킹 저장소. 테스트와 부하 측정의 기준값으로 쓴다. 콜백은 호출한 스레드에서 불린다.
+ */
+public class InMemoryRankingRepository implements AllTimeRankingRepository {
+
+    private final Map<String, RankEntry> entries = new HashMap<>();
+    private final Map<Integer, Long> histogram = new HashMap<>();
+    private final List<Observer> observers = new CopyOnWriteArrayList<>();
+    private final List<ChangeObserver> changeObservers = new CopyOnWriteArrayList<>();
+
+    @Override
+    public CompletableFuture<Void> submit(String uid, String name, int score) {
+        boolean changed;
+        synchronized (this) {
+            RankEntry current = entries.get(uid);
+            changed = current == null || score > current.getScore();
+            if (changed) {
+                entries.put(uid, new RankEntry(uid, name, score));
+                if (current != null) {
+                    histogram.merge(current.getScore(), -1L, Long::sum);
+                }
+                histogram.merge(score, 1L, Long::sum);
+            }
+        }
+        if (changed) {
+            for (Observer observer : observers) {
+                observer.listener.onChanged(sortedTop(observer.n));
+            }
+            for (ChangeObserver observer : changeObservers) {
+                observer.deliver(sortedTop(observer.n));
+            }
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public CompletableFuture<List<RankEntry>> topN(int n) {
+        return CompletableFuture.completedFuture(sortedTop(n));
+    }
+
+    @Override
+    public CompletableFuture<List<RankEntry>> topSnapshot() {
+        return topN(RankingSchema.MATERIALIZED_TOP_N);
+    }
+
+    @Override
+    public synchronized CompletableFuture<List<RankEntry>> pageAfter(RankEntry after, int n) {
+        List<RankEntry> sorted = sortedAll();
+        int from = 0;
+        if (after != null) {
+            while (from < sorted.size() && RankEntry.compare(sorted.get(from).getScore(), sorted.get(from).getUid(),
+                    after.getScore(), after.getUid()) <= 0) {
+                from++;
+            }
+        }
+        return CompletableFuture.completedFuture(
+                new ArrayList<>(sorted.subList(from, Math.min(from + n, sorted.size()))));
+    }
+
+    @Override
+    public synchronized CompletableFuture<List<RankEntry>> pageBefore(RankEntry before, int n) {
+        List<RankEntry> sorted = sortedAll();
+        int to = 0;
+        while (to < sorted.size() && RankEntry.compare(sorted.get(to).getScore(), sorted.get(to).getUid(),
+                before.getScore(), before.getUid()) < 0) {
+            to++;
+        }
+        return CompletableFuture.completedFuture(new ArrayList<>(sorted.subList(Math.max(0, to - n), to)));
+    }
+
+    @Override
+    public synchronized CompletableFuture<RankEntry> entryOf(String uid) {
+        return CompletableFuture.completedFuture(entries.get(uid));
+    }
+
+    @Override
+    public synchronized CompletableFuture<Integer> rankOf(String uid) {
+        RankEntry mine = entries.get(uid);
+        if (mine == null) {
+            return CompletableFuture.completedFuture(0);
+        }
+        int higher = 0;
+        for (RankEntry entry : entries.values()) {
+            if (entry.getScore() > mine.getScore()) {
+                higher++;
+            }
+        }
+        return CompletableFuture.completedFuture(higher + 1);
+    }
+
+    @Override
+    public synchronized CompletableFuture<ScoreHistogram> histogram() {
+        return CompletableFuture.completedFuture(ScoreHistogram.fromCounts(histogram));
+    }
+
+    @Override
+    public Registration observe(int n, Listener listener) {
+        Observer observer = new Observer(n, listener);
+        observers.add(observer);
+        listener.onChanged(sortedTop(n));
+        return () -> observers.remove(observer);
+    }
+
+    @Override
+    public Registration observeChanges(int n, ChangeListener listener) {
+        ChangeObserver observer = new ChangeObserver(n, listener);
+        changeObservers.add(observer);
+        observer.deliver(sortedTop(n));
+        return () -> changeObservers.remove(observer);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private synchronized List<RankEntry> sortedTop(int n) {
+        List<RankEntry> sorted = sortedAll();
+        return new ArrayList<>(sorted.subList(0, Math.min(n, sorted.size())));
+    }
+
+    private synchronized List<RankEntry> sortedAll() {
+        List<RankEntry> sorted = new ArrayList<>(entries.values());
+        Collections.sort(sorted, (a, b) -> RankEntry.compare(a.getScore(), a.getUid(), b.getScore(), b.getUid()));
+        return sorted;
+    }
+
+    /**
+     * 마지막으로 보낸 상위 목록을 기억했다가 달라진 줄만 보낸다.
+     */
+    private static final class ChangeObserver {
+        final int n;
+        final ChangeListener listener;
+        private Map<String, RankEntry> shown = new HashMap<>();
+
+        ChangeObserver(int n, ChangeListener listener) {
+            this.n = n;
+            this.listener = listener;
+        }
+
+        synchronized void deliver(List<RankEntry> top) {
+            Map<String, RankEntry> next = new HashMap<>();
+            List<RankChange> changes = new ArrayList<>();
+            for (RankEntry entry : top) {
+                next.put(entry.getUid(), entry);
+                if (!entry.equals(shown.remove(entry.getUid()))) {
+                    changes.add(RankChange.upsert(entry));
+                }
+            }
+            for (String uid : shown.keySet()) {
+                changes.add(RankChange.remove(uid));
+            }
+            shown = next;
+            if (!changes.isEmpty()) {
+                listener.onChanges(changes);
+            }
+        }
+    }
+
+    private static final class Observer {
+        final int n;
+        final Listener listener;
+
+        Observer(int n, Listener listener) {
+            this.n = n;
+            this.listener = listener;
+        }
+    }
+}
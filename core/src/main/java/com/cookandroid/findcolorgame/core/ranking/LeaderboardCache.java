@@ -0,0 +1,151 @@
+package com.cookandroid.findcolorgame.core.ranking;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * 랭킹 화면용 2단 캐시 (메모리 LRU + 디스크 스냅샷).
+ * 화면은 캐시된 목록을 바로 그리고, 스냅샷이 TTL 보다 오래됐으면 뒤에서 새로 받아 온다
+ * (stale-while-revalidate). 디스크 쓰기는 넘겨받은 Executor 에서 한다.
+ */
+public class LeaderboardCache {
+
+    private static final int FORMAT_VERSION = 1;
+
+    private final File directory;
+    private final long ttlMillis;
+    private final Executor diskWriter;
+    private final Map<String, Snapshot> memory;
+
+    public LeaderboardCache(File directory, final int maxMemoryEntries, long ttlMillis, Executor diskWriter) {
+        this.directory = directory;
+        this.ttlMillis = ttlMillis;
+        this.diskWriter = diskWriter;
+        this.memory = new LinkedHashMap<String, Snapshot>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Snapshot> eldest) {
+                return size() > maxMemoryEntries;
+            }
+        };
+    }
+
+    /**
+     * 메모리, 없으면 디스크에서 스냅샷을 찾는다. 디스크 스냅샷은 작아서 바로 읽는다.
+     *
+     * @return 없거나 읽을 수 없으면 null
+     */
+    public Snapshot get(String key) {
+        synchronized (memory) {
+            Snapshot cached = memory.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        Snapshot loaded = readFromDisk(key);
+        if (loaded != null) {
+            synchronized (memory) {
+                memory.put(key, loaded);
+            }
+        }
+        return loaded;
+    }
+
+    public void put(String key, List<RankEntry> entries, long nowMillis) {
+        final Snapshot snapshot = new Snapshot(new ArrayList<>(entries), nowMillis);
+        synchronized (memory) {
+            memory.put(key, snapshot);
+        }
+        final File file = fileFor(key);
+        diskWriter.execute(() -> writeToDisk(file, snapshot));
+    }
+
+    public boolean isStale(Snapshot snapshot, long nowMillis) {
+        return nowMillis - snapshot.savedAtMillis >= ttlMillis;
+    }
+
+    private File fileFor(String key) {
+        // 키는 "top", "weekly-2026-W42" 같은 형태. 파일 이름에 못 쓰는 문자는 바꾼다
+        return new File(directory, key.replaceAll("[^A-Za-z0-9_-]", "_") + ".snap");
+    }
+
+    private Snapshot readFromDisk(String key) {
+        File file = fileFor(key);
+        if (!file.exists()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != FORMAT_VERSION) {
+                return null;
+            }
+            long savedAtMillis = in.readLong();
+            int count = in.readInt();
+            List<RankEntry> entries = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String uid = in.readUTF();
+                String name = in.readBoolean() ? in.readUTF() : null;
+                entries.add(new RankEntry(uid, name, in.readInt()));
+            }
+            return new Snapshot(entries, savedAtMillis);
+        } catch (IOException e) {
+            return null; // 깨진 스냅샷은 없는 것으로 본다
+        }
+    }
+
+    private void writeToDisk(File file, Snapshot snapshot) {
+        if (!directory.exists() && !directory.mkdirs()) {
+            return;
+        }
+        File temp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(snapshot.savedAtMillis);
+            out.writeInt(snapshot.entries.size());
+            for (RankEntry entry : snapshot.entries) {
+                out.writeUTF(entry.getUid());
+                out.writeBoolean(entry.getName() != null);
+                if (entry.getName() != null) {
+                    out.writeUTF(entry.getName());
+                }
+                out.writeInt(entry.getScore());
+            }
+        } catch (IOException e) {
+            temp.delete();
+            return;
+        }
+        if (!temp.renameTo(file)) {
+            file.delete();
+            temp.renameTo(file);
+        }
+    }
+
+    public static final class Snapshot {
+
+        private final List<RankEntry> entries;
+        private final long savedAtMillis;
+
+        Snapshot(List<RankEntry> entries, long savedAtMillis) {
+            this.entries = Collections.unmodifiableList(entries);
+            this.savedAtMillis = savedAtMillis;
+        }
+
+        public List<RankEntry> getEntries() {
+            return entries;
+        }
+
+        public long getSavedAtMillis() {
+            return savedAtMillis;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.cookandroid.findcolorgame.core.ranking;
+
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.regex.Pattern;
+
+/**
+ * 랭킹 기간. 일간/주간 랭킹은 기간 칸(bucket)마다 따로 모은다.
+ * 전체 기간은 기존 rankings/{uid}, 나머지는 leaderboards/{bucket}/rankings/{uid} 에 쓴다.
+ * 칸 이름은 문자열 순서가 곧 시간 순서라서 오래된 칸을 문자열 비교만으로 골라낼 수 있다.
+ */
+public enum LeaderboardWindow {
+
+    /** 칸 없음. */
+    ALL_TIME(0, 0),
+    /** 2026-10-18 형식. 최근 7 일치를 남긴다. */
+    DAILY(7, 24L * 60 * 60 * 1000),
+    /** ISO 주차, 2026-W42 형식. 최근 8 주치를 남긴다. */
+    WEEKLY(8, 7L * 24 * 60 * 60 * 1000);
+
+    private static final Pattern DAILY_KEY = Pattern.compile("\\d{4}-\\d{2}-\\d{2}");
+    private static final Pattern WEEKLY_KEY = Pattern.compile("\\d{4}-W\\d{2}");
+
+    private final int retainedBuckets;
+    private final long periodMillis;
+
+    LeaderboardWindow(int retainedBuckets, long periodMillis) {
+        this.retainedBuckets = retainedBuckets;
+        this.periodMillis = periodMillis;
+    }
+
+    /**
+     * millis 가 속한 칸 이름 (RankingSchema.WINDOW_TIME_ZONE 기준). 전체 기간은 null.
+     */
+    public String bucketKey(long millis) {
+        if (this == ALL_TIME) {
+            return null;
+        }
+        Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone(RankingSchema.WINDOW_TIME_ZONE), Locale.ROOT);
+        calendar.setFirstDayOfWeek(Calendar.MONDAY); // ISO 8601 주차
+        calendar.setMinimalDaysInFirstWeek(4);
+        calendar.setTimeInMillis(millis);
+        if (this == DAILY) {
+            return String.format(Locale.ROOT, "%04d-%02d-%02d", calendar.get(Calendar.YEAR),
+                    calendar.get(Calendar.MONTH) + 1, calendar.get(Calendar.DAY_OF_MONTH));
+        }
+        return String.format(Locale.ROOT, "%04d-W%02d", calendar.getWeekYear(), calendar.get(Calendar.WEEK_OF_YEAR));
+    }
+
+    /**
+     * millis 시점의 랭킹 컬렉션 경로.
+     */
+    public String collectionPath(long millis) {
+        if (this == ALL_TIME) {
+            return RankingSchema.COLLECTION_RANKINGS;
+        }
+        return RankingSchema.COLLECTION_LEADERBOARDS + "/" + bucketKey(millis) + "/" + RankingSchema.COLLECTION_RANKINGS;
+    }
+
+    /**
+     * 이 기간의 칸이고 남겨 둘 기간보다 오래됐으면 true. 정리 작업이 지울 칸을 고를 때 쓴다.
+     */
+    public boolean isExpired(String bucketKey, long nowMillis) {
+        if (ofBucketKey(bucketKey) != this) {
+            return false;
+        }
+        String oldestRetained = bucketKey(nowMillis - (retainedBuckets - 1) * periodMillis);
+        return bucketKey.compareTo(oldestRetained) < 0;
+    }
+
+    /**
+     * 칸 이름으로 기간을 알아낸다. 알 수 없는 이름이면 null.
+     */
+    public static LeaderboardWindow ofBucketKey(String bucketKey) {
+        if (DAILY_KEY.matcher(bucketKey).matches()) {
+            return DAILY;
+        }
+        if (WEEKLY_KEY.matcher(bucketKey).matches()) {
+            return WEEKLY;
+        }
+        return null;
+    }
+
+    /**
+     * 점수들을 써야 할 문서 경로별로 모은다. 점수 하나는 모든 기간의 칸에 들어가고,
+     * 같은 문서에 점수가 여럿이면 가장 높은 것만 남긴다. 한 묶음에서 문서마다 한 번만 읽고 쓰기 위한 것이다.
+     */
+    public static Map<String, PendingScore> bestByDocumentPath(Collection<PendingScore> scores) {
+        Map<String, PendingScore> best = new LinkedHashMap<>();
+        for (PendingScore score : scores) {
+            for (LeaderboardWindow window : values()) {
+                String path = window.collectionPath(score.getCreatedAtMillis()) + "/" + score.getUid();
+                PendingScore existing = best.get(path);
+                if (existing == null || score.getScore() > existing.getScore()) {
+                    best.put(path, score);
+                }
+            }
+        }
+        return best;
+    }
+}
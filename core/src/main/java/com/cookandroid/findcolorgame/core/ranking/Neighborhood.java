@@ -0,0 +1,90 @@
+package com.cookandroid.findcolorgame.core.ranking;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 내 위아래 radius 명씩, 모두 2 * radius + 1 줄의 "내 주변" 랭킹.
+ * 1 위부터 넘겨 가며 찾지 않고, 내 줄을 기준으로 앞쪽과 뒤쪽을 각각 limit 이 있는 범위 쿼리로 읽는다.
+ * 맨 위나 맨 아래라서 한쪽이 모자라면 반대쪽에서 모자란 만큼만 더 읽어 줄 수를 맞춘다.
+ */
+public final class Neighborhood {
+
+    private final List<RankEntry> rows;
+    private final int ownIndex;
+
+    private Neighborhood(List<RankEntry> rows, int ownIndex) {
+        this.rows = rows;
+        this.ownIndex = ownIndex;
+    }
+
+    /**
+     * 위에서 아래 순서의 줄들. 기록이 없으면 빈 목록.
+     */
+    public List<RankEntry> getRows() {
+        return rows;
+    }
+
+    /**
+     * rows 안에서 내 줄의 위치. 기록이 없으면 -1.
+     */
+    public int getOwnIndex() {
+        return ownIndex;
+    }
+
+    /**
+     * 줄마다 경쟁 순위 (자기보다 점수가 높은 사람 수 + 1). 같은 점수는 같은 순위다.
+     * 줄 위치로 순위를 매기면 같은 점수가 uid 순으로 갈려 번호가 밀리므로 점수 분포로 구한다.
+     */
+    public int[] competitionRanks(ScoreHistogram histogram) {
+        int[] ranks = new int[rows.size()];
+        for (int i = 0; i < ranks.length; i++) {
+            ranks[i] = (int) histogram.rankOf(rows.get(i).getScore());
+        }
+        return ranks;
+    }
+
+    public static CompletableFuture<Neighborhood> load(RankingRepository repository, String uid, int radius) {
+        return repository.entryOf(uid).thenCompose(own -> {
+            if (own == null) {
+                return CompletableFuture.completedFuture(new Neighborhood(Collections.<RankEntry>emptyList(), -1));
+            }
+            return repository.pageBefore(own, radius).thenCombine(repository.pageAfter(own, radius),
+                    (above, below) -> fill(repository, own, radius, above, below)).thenCompose(future -> future);
+        });
+    }
+
+    private static CompletableFuture<Neighborhood> fill(RankingRepository repository, RankEntry own, int radius,
+                                                        List<RankEntry> above, List<RankEntry> below) {
+        int missingAbove = radius - above.size();
+        int missingBelow = radius - below.size();
+        if (missingAbove > 0 && missingBelow == 0) {
+            // 위쪽 끝: 아래를 더 읽는다
+            return repository.pageAfter(below.get(below.size() - 1), missingAbove)
+                    .thenApply(more -> join(above, own, concat(below, more)));
+        }
+        if (missingBelow > 0 && missingAbove == 0) {
+            // 아래쪽 끝: 위를 더 읽는다
+            return repository.pageBefore(above.get(0), missingBelow)
+                    .thenApply(more -> join(concat(more, above), own, below));
+        }
+        return CompletableFuture.completedFuture(join(above, own, below));
+    }
+
+    private static Neighborhood join(List<RankEntry> above, RankEntry own, List<RankEntry> below) {
+        List<RankEntry> rows = new ArrayList<>(above.size() + 1 + below.size());
+        rows.addAll(above);
+        rows.add(own);
+        rows.addAll(below);
+        return new Neighborhood(rows, above.size());
+    }
+
+    private static List<RankEntry> concat(List<RankEntry> first, List<RankEntry> second) {
+        List<RankEntry> joined = new ArrayList<>(first.size() + second.size());
+        joined.addAll(first);
+        joined.addAll(second);
+        return joined;
+    }
+}
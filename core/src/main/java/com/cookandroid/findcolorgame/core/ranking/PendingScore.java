@@ -0,0 +1,47 @@
+package com.cookandroid.findcolorgame.core.ranking;
+
+/**
+ * 아직 서버에 반영되지 않은 게임 결과 하나.
+ * gameId 는 기기에서 만든 게임 식별자로, 같은 결과가 두 번 들어오는 것을 막는다.
+ */
+public final class PendingScore {
+
+    private final String gameId;
+    private final String uid;
+    private final String name;
+    private final int score;
+    private final long createdAtMillis;
+
+    public PendingScore(String gameId, String uid, String name, int score, long createdAtMillis) {
+        this.gameId = gameId;
+        this.uid = uid;
+        this.name = name;
+        this.score = score;
+        this.createdAtMillis = createdAtMillis;
+    }
+
+    public String getGameId() {
+        return gameId;
+    }
+
+    public String getUid() {
+        return uid;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public long getCreatedAtMillis() {
+        return createdAtMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "PendingScore{" + uid + "=" + score + ", gameId=" + gameId + "}";
+    }
+}
@@ -0,0 +1,43 @@
+package com.cookandroid.findcolorgame.core.ranking;
+
+/**
+ * 실시간 랭킹에서 받은 변경 하나. 추가와 점수/이름 변경은 upsert, 상위 목록에서 빠진 것은 remove 다.
+ */
+public final class RankChange {
+
+    private final String uid;
+    private final RankEntry entry;
+
+    private RankChange(String uid, RankEntry entry) {
+        this.uid = uid;
+        this.entry = entry;
+    }
+
+    public static RankChange upsert(RankEntry entry) {
+        return new RankChange(entry.getUid(), entry);
+    }
+
+    public static RankChange remove(String uid) {
+        return new RankChange(uid, null);
+    }
+
+    public String getUid() {
+        return uid;
+    }
+
+    /**
+     * 바뀐 뒤의 값. remove 면 null.
+     */
+    public RankEntry getEntry() {
+        return entry;
+    }
+
+    public boolean isRemoval() {
+        return entry == null;
+    }
+
+    @Override
+    public String toString() {
+        return isRemoval() ? "remove " + uid : "upsert " + entry;
+    }
+}
@@ -0,0 +1,65 @@
+package com.cookandroid.findcolorgame.core.ranking;
+
+/**
+ * 랭킹 한 줄. 점수는 도달한 스테이지 번호다.
+ */
+public final class RankEntry {
+
+    private final String uid;
+    private final String name;
+    private final int score;
+
+    public RankEntry(String uid, String name, int score) {
+        this.uid = uid;
+        this.name = name;
+        this.score = score;
+    }
+
+    public String getUid() {
+        return uid;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * 랭킹 순서: 점수 내림차순, 같으면 uid 오름차순.
+     */
+    public static int compare(int scoreA, String uidA, int scoreB, String uidB) {
+        if (scoreA != scoreB) {
+            return scoreA > scoreB ? -1 : 1;
+        }
+        return uidA.compareTo(uidB);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof RankEntry)) {
+            return false;
+        }
+        RankEntry other = (RankEntry) o;
+        return score == other.score && uid.equals(other.uid)
+                && (name == null ? other.name == null : name.equals(other.name));
+    }
+
+    @Override
+    public int hashCode() {
+        int result = uid.hashCode();
+        result = 31 * result + (name != null ? name.hashCode() : 0);
+        result = 31 * result + score;
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return name + " : " + score;
+    }
+}
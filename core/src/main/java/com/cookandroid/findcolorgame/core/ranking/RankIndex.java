@@ -0,0 +1,213 @@
+package com.cookandroid.findcolorgame.core.ranking;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * 랭킹 순서(점수 내림차순, uid 오름차순)로 정렬된 색인.
+ * 서브트리 크기를 함께 들고 있는 트립(treap)이라 삽입, 삭제, 위치 찾기가 모두 O(log n) 이다.
+ * 변경을 적용할 때마다 화면 목록의 몇 번째 줄이 어떻게 바뀌었는지 Listener 로 알려 준다.
+ * 스레드 안전하지 않으므로 한 스레드(보통 UI 스레드)에서만 쓴다.
+ */
+public final class RankIndex {
+
+    /**
+     * 줄 단위 변경 알림. RecyclerView.Adapter 의 notifyItem* 과 그대로 대응한다.
+     */
+    public interface Listener {
+        void onInserted(int position);
+
+        void onRemoved(int position);
+
+        void onMoved(int fromPosition, int toPosition);
+
+        void onChanged(int position);
+    }
+
+    private static final class Node {
+        final RankEntry entry;
+        final int priority;
+        int size = 1;
+        Node left;
+        Node right;
+
+        Node(RankEntry entry, int priority) {
+            this.entry = entry;
+            this.priority = priority;
+        }
+    }
+
+    private final Map<String, RankEntry> byUid = new HashMap<>();
+    private final Random random = new Random();
+    private Node root;
+
+    // split 결과. 재귀마다 배열을 만들지 않으려고 필드로 돌려준다
+    private Node splitLeft;
+    private Node splitRight;
+
+    public void apply(List<RankChange> changes, Listener listener) {
+        for (int i = 0; i < changes.size(); i++) {
+            RankChange change = changes.get(i);
+            if (change.isRemoval()) {
+                remove(change.getUid(), listener);
+            } else {
+                upsert(change.getEntry(), listener);
+            }
+        }
+    }
+
+    public void upsert(RankEntry entry, Listener listener) {
+        RankEntry old = byUid.put(entry.getUid(), entry);
+        if (old == null) {
+            insertNode(entry);
+            listener.onInserted(positionOf(entry));
+            return;
+        }
+        int from = positionOf(old);
+        root = removeNode(root, old);
+        insertNode(entry);
+        int to = positionOf(entry);
+        if (from != to) {
+            listener.onMoved(from, to);
+        }
+        if (!entry.equals(old)) {
+            listener.onChanged(to);
+        }
+    }
+
+    public void remove(String uid, Listener listener) {
+        RankEntry old = byUid.remove(uid);
+        if (old == null) {
+            return;
+        }
+        int position = positionOf(old);
+        root = removeNode(root, old);
+        listener.onRemoved(position);
+    }
+
+    public void clear() {
+        byUid.clear();
+        root = null;
+    }
+
+    public int size() {
+        return size(root);
+    }
+
+    /**
+     * 0 부터 시작하는 position 번째 줄.
+     */
+    public RankEntry get(int position) {
+        if (position < 0 || position >= size()) {
+            throw new IndexOutOfBoundsException("position " + position + ", size " + size());
+        }
+        Node node = root;
+        while (true) {
+            int leftSize = size(node.left);
+            if (position < leftSize) {
+                node = node.left;
+            } else if (position == leftSize) {
+                return node.entry;
+            } else {
+                position -= leftSize + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    /**
+     * uid 의 현재 위치. 색인에 없으면 -1.
+     */
+    public int positionOf(String uid) {
+        RankEntry entry = byUid.get(uid);
+        return entry != null ? positionOf(entry) : -1;
+    }
+
+    /** entry 보다 앞에 있는 줄 수. */
+    private int positionOf(RankEntry entry) {
+        int position = 0;
+        Node node = root;
+        while (node != null) {
+            if (compare(entry, node.entry) <= 0) {
+                node = node.left;
+            } else {
+                position += size(node.left) + 1;
+                node = node.right;
+            }
+        }
+        return position;
+    }
+
+    private void insertNode(RankEntry entry) {
+        split(root, entry);
+        Node left = splitLeft;
+        Node right = splitRight;
+        root = merge(merge(left, new Node(entry, random.nextInt())), right);
+    }
+
+    /** node 를 entry 보다 앞(splitLeft)과 entry 이상(splitRight)으로 나눈다. */
+    private void split(Node node, RankEntry entry) {
+        if (node == null) {
+            splitLeft = null;
+            splitRight = null;
+            return;
+        }
+        if (compare(node.entry, entry) < 0) {
+            split(node.right, entry);
+            node.right = splitLeft;
+            update(node);
+            splitLeft = node;
+        } else {
+            split(node.left, entry);
+            node.left = splitRight;
+            update(node);
+            splitRight = node;
+        }
+    }
+
+    /** left 의 모든 줄이 right 보다 앞이어야 한다. */
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            update(left);
+            return left;
+        }
+        right.left = merge(left, right.left);
+        update(right);
+        return right;
+    }
+
+    private static Node removeNode(Node node, RankEntry entry) {
+        int c = compare(entry, node.entry);
+        if (c == 0) {
+            return merge(node.left, node.right);
+        }
+        if (c < 0) {
+            node.left = removeNode(node.left, entry);
+        } else {
+            node.right = removeNode(node.right, entry);
+        }
+        update(node);
+        return node;
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static void update(Node node) {
+        node.size = 1 + size(node.left) + size(node.right);
+    }
+
+    private static int compare(RankEntry a, RankEntry b) {
+        return RankEntry.compare(a.getScore(), a.getUid(), b.getScore(), b.getUid());
+    }
+}
@@ -0,0 +1,220 @@
+package com.cookandroid.findcolorgame.core.ranking;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 정렬이 끝난 랭킹 표. 줄마다 객체를 두지 않고 열마다 배열 하나씩(struct-of-arrays) 갖는다.
+ * 한 번 만들면 바뀌지 않으므로 백그라운드 스레드에서 만들어 UI 스레드에 그대로 넘겨도 된다.
+ *
+ * <p>페이지를 붙일 때마다 전체를 복사하지 않도록, 붙여서 만든 표들은 열 배열을 함께 쓰고 각자 앞쪽 size 줄만 본다.
+ * 가장 나중 표에 붙일 때만 배열 뒤쪽 빈칸에 이어 쓰므로 페이지 하나의 비용은 페이지 크기에 비례한다.
+ * 이전 표에 다시 붙이면 그때만 복사한다.
+ */
+public final class RankTable {
+
+    public static final RankTable EMPTY = new RankTable(new Rows(0), 0);
+
+    /**
+     * 여러 표가 함께 쓰는 열 배열. 배열이 모자라면 새로 늘린 배열로 바꾸므로 이전 표는 옛 배열을 그대로 본다.
+     */
+    private static final class Rows {
+        String[] uids;
+        String[] names;
+        long[] scores;
+        /** order[i] 는 i 번째(0 부터) 순위 줄이 들어 있는 배열 칸. */
+        int[] order;
+        /** uid 가 들어 있는 배열 칸. used 보다 앞의 줄만 있다. */
+        final Map<String, Integer> rowOfUid;
+        int used;
+
+        Rows(int capacity) {
+            uids = new String[capacity];
+            names = new String[capacity];
+            scores = new long[capacity];
+            order = new int[capacity];
+            rowOfUid = new HashMap<>();
+        }
+
+        /**
+         * 앞쪽 size 줄만 가진 새 열 배열.
+         */
+        Rows prefix(int size, int capacity) {
+            Rows copy = new Rows(capacity);
+            System.arraycopy(uids, 0, copy.uids, 0, size);
+            System.arraycopy(names, 0, copy.names, 0, size);
+            System.arraycopy(scores, 0, copy.scores, 0, size);
+            System.arraycopy(order, 0, copy.order, 0, size);
+            for (int i = 0; i < size; i++) {
+                copy.rowOfUid.put(uids[i], i);
+            }
+            copy.used = size;
+            return copy;
+        }
+
+        void ensureCapacity(int capacity) {
+            if (capacity <= uids.length) {
+                return;
+            }
+            int grown = Math.max(capacity, uids.length * 2);
+            uids = Arrays.copyOf(uids, grown);
+            names = Arrays.copyOf(names, grown);
+            scores = Arrays.copyOf(scores, grown);
+            order = Arrays.copyOf(order, grown);
+        }
+    }
+
+    private final Rows rows;
+    // 만들 때의 배열. 나중에 rows 가 배열을 늘려도 이 표는 이것만 읽는다
+    private final String[] uids;
+    private final String[] names;
+    private final long[] scores;
+    private final int[] order;
+    private final int size;
+
+    private RankTable(Rows rows, int size) {
+        this.rows = rows;
+        this.uids = rows.uids;
+        this.names = rows.names;
+        this.scores = rows.scores;
+        this.order = rows.order;
+        this.size = size;
+    }
+
+    public static RankTable of(List<RankEntry> entries) {
+        return EMPTY.append(entries);
+    }
+
+    /**
+     * 이 표 뒤에 entries 를 더한 새 표. 이미 있는 uid 는 건너뛴다.
+     * 새 줄만 정렬해서 기존 순서에 병합하고, 새 줄이 모두 기존 마지막 줄 뒤에 오면(커서 페이지) 뒤에 이어 붙이기만 한다.
+     */
+    public RankTable append(List<RankEntry> entries) {
+        synchronized (rows) {
+            Rows target = rows.used == size && rows != EMPTY.rows
+                    ? rows : rows.prefix(size, Math.max(16, (size + entries.size()) * 2));
+            target.ensureCapacity(size + entries.size());
+
+            int total = size;
+            for (RankEntry entry : entries) {
+                // 같은 점수가 페이지 경계에 걸려 이미 받은 줄이 다시 오면 버린다
+                if (target.rowOfUid.containsKey(entry.getUid())) {
+                    continue;
+                }
+                target.uids[total] = entry.getUid();
+                target.names[total] = entry.getName();
+                target.scores[total] = entry.getScore();
+                target.rowOfUid.put(entry.getUid(), total);
+                total++;
+            }
+            target.used = total;
+            if (total == size) {
+                return this;
+            }
+
+            int[] page = new int[total - size];
+            for (int i = 0; i < page.length; i++) {
+                page[i] = size + i;
+            }
+            mergeSort(page, new int[page.length], 0, page.length, target.uids, target.scores);
+            mergeInto(target, size, page);
+            return new RankTable(target, total);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String uidAt(int position) {
+        return uids[order[position]];
+    }
+
+    public String nameAt(int position) {
+        return names[order[position]];
+    }
+
+    public long scoreAt(int position) {
+        return scores[order[position]];
+    }
+
+    /**
+     * position 번째 줄. 다음 페이지 커서처럼 한 줄만 필요할 때 쓴다.
+     */
+    public RankEntry entryAt(int position) {
+        int row = order[position];
+        return new RankEntry(uids[row], names[row], (int) scores[row]);
+    }
+
+    /**
+     * 정렬된 새 줄들(page)을 target.order 의 앞쪽 size 칸과 병합한다.
+     * 새 줄이 모두 뒤에 오면 이어 쓰기만 하고, 끼어드는 줄이 있으면 끼어드는 곳부터만 병합한다.
+     * 앞쪽 칸은 이전 표들이 보고 있으므로 바꿔야 할 때는 새 배열에 쓴다.
+     */
+    private static void mergeInto(Rows target, int size, int[] page) {
+        String[] uids = target.uids;
+        long[] scores = target.scores;
+        int[] order = target.order;
+        if (size == 0 || compare(order[size - 1], page[0], uids, scores) <= 0) {
+            System.arraycopy(page, 0, order, size, page.length);
+            return;
+        }
+        // 새 첫 줄이 들어갈 자리. 그 앞은 그대로다
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(order[mid], page[0], uids, scores) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        int[] merged = new int[order.length];
+        System.arraycopy(order, 0, merged, 0, low);
+        int left = low;
+        int right = 0;
+        for (int i = low; i < size + page.length; i++) {
+            if (right >= page.length || (left < size && compare(order[left], page[right], uids, scores) <= 0)) {
+                merged[i] = order[left++];
+            } else {
+                merged[i] = page[right++];
+            }
+        }
+        target.order = merged;
+    }
+
+    /**
+     * 점수 내림차순, 같으면 uid 오름차순. 인덱스 배열만 병합 정렬하므로 박싱이 없다.
+     */
+    private static void mergeSort(int[] a, int[] tmp, int from, int to, String[] uids, long[] scores) {
+        if (to - from < 2) {
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        mergeSort(a, tmp, from, mid, uids, scores);
+        mergeSort(a, tmp, mid, to, uids, scores);
+        if (compare(a[mid - 1], a[mid], uids, scores) <= 0) {
+            return; // 이미 이어져 있다 (서버가 정렬해서 준 페이지)
+        }
+        System.arraycopy(a, from, tmp, from, to - from);
+        int left = from;
+        int right = mid;
+        for (int i = from; i < to; i++) {
+            if (right >= to || (left < mid && compare(tmp[left], tmp[right], uids, scores) <= 0)) {
+                a[i] = tmp[left++];
+            } else {
+                a[i] = tmp[right++];
+            }
+        }
+    }
+
+    private static int compare(int a, int b, String[] uids, long[] scores) {
+        if (scores[a] != scores[b]) {
+            return scores[a] > scores[b] ? -1 : 1;
+        }
+        return uids[a].compareTo(uids[b]);
+    }
+}
@@ -0,0 +1,96 @@
+package com.cookandroid.findcolorgame.core.ranking;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Firestore 랭킹 기록(rankings/{uid}, leaderboards/{bucket}/rankings/{uid})과 프로필(profiles/{uid}) 문서 형식.
+ * 쓰기는 늘 2 판으로 하고, 읽기는 이전이 끝날 때까지 1 판({key, name, score})도 받는다.
+ */
+public final class RankingRecordCodec {
+
+    private RankingRecordCodec() {
+    }
+
+    public static Map<String, Object> encodeRecord(int score) {
+        Map<String, Object> fields = new HashMap<>();
+        fields.put(RankingSchema.FIELD_VERSION, RankingSchema.SCHEMA_VERSION);
+        fields.put(RankingSchema.FIELD_COMPACT_SCORE, score);
+        return fields;
+    }
+
+    public static Map<String, Object> encodeProfile(String name) {
+        Map<String, Object> fields = new HashMap<>();
+        fields.put(RankingSchema.FIELD_VERSION, RankingSchema.SCHEMA_VERSION);
+        fields.put(RankingSchema.FIELD_COMPACT_NAME, name);
+        return fields;
+    }
+
+    /**
+     * 2 판 기록인지. 문서가 없으면(fields 가 null) false.
+     */
+    public static boolean isCurrent(Map<String, ?> fields) {
+        return fields != null && fields.get(RankingSchema.FIELD_VERSION) instanceof Number;
+    }
+
+    /**
+     * 기록의 점수. 문서가 없거나 점수가 없으면 null.
+     */
+    public static Integer scoreOf(Map<String, ?> fields) {
+        if (fields == null) {
+            return null;
+        }
+        Object score = fields.get(isCurrent(fields) ? RankingSchema.FIELD_COMPACT_SCORE : RankingSchema.FIELD_SCORE);
+        return score instanceof Number ? ((Number) score).intValue() : null;
+    }
+
+    /**
+     * 1 판 기록에 함께 있던 이름. 2 판 기록은 이름이 없으므로 null 이고, 프로필에서 읽어야 한다.
+     */
+    public static String legacyNameOf(Map<String, ?> fields) {
+        if (fields == null || isCurrent(fields)) {
+            return null;
+        }
+        Object name = fields.get(RankingSchema.FIELD_NAME);
+        return name instanceof String ? (String) name : null;
+    }
+
+    /**
+     * 프로필 문서의 이름. 문서가 없으면 null.
+     */
+    public static String profileNameOf(Map<String, ?> fields) {
+        if (fields == null) {
+            return null;
+        }
+        Object name = fields.get(RankingSchema.FIELD_COMPACT_NAME);
+        return name instanceof String ? (String) name : null;
+    }
+
+    /**
+     * ranking/totalRanking 문서의 entries 맵. 맵 키가 uid 이고 값이 {key, name, score} 다.
+     * 값이 맵이 아니거나 점수가 없는 줄은 건너뛴다. 순서는 정하지 않는다.
+     */
+    public static List<RankEntry> decodeLegacyEntries(Object entriesField) {
+        if (!(entriesField instanceof Map)) {
+            return Collections.emptyList();
+        }
+        Map<?, ?> rows = (Map<?, ?>) entriesField;
+        List<RankEntry> entries = new ArrayList<>(rows.size());
+        for (Map.Entry<?, ?> row : rows.entrySet()) {
+            if (!(row.getKey() instanceof String) || !(row.getValue() instanceof Map)) {
+                continue;
+            }
+            @SuppressWarnings("unchecked")
+            Map<String, ?> fields = (Map<String, ?>) row.getValue();
+            Integer score = scoreOf(fields);
+            if (score == null) {
+                continue;
+            }
+            entries.add(new RankEntry((String) row.getKey(), legacyNameOf(fields), score));
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,76 @@
+package com.cookandroid.findcolorgame.core.ranking;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 랭킹 저장소. Firestore, Realtime Database, 메모리 구현이 있으며 화면은 이 인터페이스만 쓴다.
+ * 결과 콜백이 어느 스레드에서 불리는지는 구현마다 다르므로 화면 갱신은 UI 스레드로 넘겨야 한다.
+ * 점수 분포까지 읽는 전체 기간 저장소는 AllTimeRankingRepository 다.
+ */
+public interface RankingRepository {
+
+    /**
+     * 점수를 올린다. 저장된 점수보다 클 때만 바뀐다.
+     */
+    CompletableFuture<Void> submit(String uid, String name, int score);
+
+    /**
+     * 점수 내림차순 상위 n 개.
+     */
+    CompletableFuture<List<RankEntry>> topN(int n);
+
+    /**
+     * 미리 만들어 둔 상위 MATERIALIZED_TOP_N 목록을 한 번에 읽는다. 없으면 topN 으로 대신한다.
+     * 몇 분 늦을 수 있지만 첫 화면을 작은 문서 하나로 채운다.
+     */
+    CompletableFuture<List<RankEntry>> topSnapshot();
+
+    /**
+     * 랭킹 순서에서 after 바로 다음부터 n 개. after 가 null 이면 맨 위부터 읽는다.
+     * 오프셋이 아니라 마지막 줄을 커서로 쓰므로 몇 번째 페이지든 읽는 문서 수는 n 개다.
+     */
+    CompletableFuture<List<RankEntry>> pageAfter(RankEntry after, int n);
+
+    /**
+     * 랭킹 순서에서 before 바로 앞의 n 개 (순서는 그대로 위에서 아래로).
+     */
+    CompletableFuture<List<RankEntry>> pageBefore(RankEntry before, int n);
+
+    /**
+     * uid 의 랭킹 줄. 기록이 없으면 null.
+     */
+    CompletableFuture<RankEntry> entryOf(String uid);
+
+    /**
+     * 1 부터 시작하는 순위 (자기보다 점수가 높은 사람 수 + 1). 기록이 없으면 0.
+     */
+    CompletableFuture<Integer> rankOf(String uid);
+
+    /**
+     * 상위 n 개가 바뀔 때마다 listener 를 부른다. 등록하자마자 현재 값으로 한 번 불린다.
+     */
+    Registration observe(int n, Listener listener);
+
+    /**
+     * observe 와 같은 상위 n 개를 지켜보되 바뀐 문서만 넘긴다. 처음에는 현재 목록 전체가 upsert 로 온다.
+     * 상위 n 개에서 밀려난 줄은 remove 로 온다.
+     */
+    Registration observeChanges(int n, ChangeListener listener);
+
+    interface Listener {
+        void onChanged(List<RankEntry> top);
+
+        void onError(Exception e);
+    }
+
+    interface ChangeListener {
+        void onChanges(List<RankChange> changes);
+
+        void onError(Exception e);
+    }
+
+    interface Registration {
+        void remove();
+    }
+}
@@ -0,0 +1,95 @@
+package com.cookandroid.findcolorgame.core.ranking;
+
+/**
+ * Firestore 랭킹 데이터의 경로와 필드 이름.
+ * 사용자마다 rankings/{uid} 문서 하나를 두고, 점수로 정렬한 상위 N 개만 읽는다.
+ * 문서 형식은 RankingRecordCodec 이 맡는다.
+ */
+public final class RankingSchema {
+
+    private RankingSchema() {
+    }
+
+    /** 사용자별 랭킹 문서 컬렉션. 문서 ID 는 Firebase uid. */
+    public static final String COLLECTION_RANKINGS = "rankings";
+
+    /** 1 판(버전 필드 없음) 랭킹 기록과 Realtime Database 랭킹의 필드. */
+    public static final String FIELD_KEY = "key";
+    public static final String FIELD_NAME = "name";
+    public static final String FIELD_SCORE = "score";
+
+    /**
+     * Firestore 랭킹 기록 형식 버전. 2 판 기록은 {v, s} 뿐이다. uid 는 문서 ID 로 충분하고
+     * 이름은 profiles/{uid} 로 옮겼다. 정렬 색인은 s 에 건다 (s DESC, __name__ ASC).
+     */
+    public static final int SCHEMA_VERSION = 2;
+    public static final String FIELD_VERSION = "v";
+    public static final String FIELD_COMPACT_SCORE = "s";
+
+    /** 이름만 담은 프로필 문서 {v, n}. 상위 목록을 만들 때와 기기 이름 캐시에 없을 때만 읽는다. */
+    public static final String COLLECTION_PROFILES = "profiles";
+    public static final String FIELD_COMPACT_NAME = "n";
+
+    /** 처음 형식: ranking/totalRanking 문서의 entries 맵 하나에 모든 사용자가 있었다. 이전 작업만 읽는다. */
+    public static final String LEGACY_COLLECTION_RANKING = "ranking";
+    public static final String LEGACY_DOC_TOTAL = "totalRanking";
+
+    /** 기간별 랭킹. leaderboards/{bucket}/rankings/{uid} (LeaderboardWindow 참고). */
+    public static final String COLLECTION_LEADERBOARDS = "leaderboards";
+    /** 일간/주간 칸을 나누는 기준 시간대. 주 이용자 기준으로 자정에 바뀐다. */
+    public static final String WINDOW_TIME_ZONE = "Asia/Seoul";
+
+    /** 점수 분포 같은 집계 문서 컬렉션. */
+    public static final String COLLECTION_STATS = "rankingStats";
+    /**
+     * 점수 분포. 모든 게임 종료가 이 값을 고치므로 문서 하나에 몰리지 않게
+     * histogram/shards/{0..HISTOGRAM_SHARDS-1} 로 나눠 쓰고, 읽을 때 합친다.
+     * 각 샤드의 buckets 맵 키는 점수, 값은 사용자 수다.
+     */
+    public static final String DOC_HISTOGRAM = "histogram";
+    public static final String COLLECTION_SHARDS = "shards";
+    public static final String FIELD_BUCKETS = "buckets";
+    public static final int HISTOGRAM_SHARDS = 16;
+
+    /**
+     * 압축 작업(:compactor)이 주기적으로 만드는 상위 목록 문서. 2 판은 u(uid), s(점수), n(이름) 배열을
+     * 같은 순서로 둔다. 1 판은 {key, name, score} 맵의 entries 배열이었다 (TopSnapshotCodec 참고).
+     */
+    public static final String DOC_TOP = "top100";
+    public static final String FIELD_ENTRIES = "entries";
+    public static final String FIELD_TOP_UIDS = "u";
+    public static final String FIELD_UPDATED_AT = "updatedAt";
+    public static final int MATERIALIZED_TOP_N = 100;
+
+    /** 랭킹 화면에서 한 번에 읽는 문서 수. */
+    public static final int TOP_N = 50;
+
+    /** 랭킹 화면을 스크롤할 때 커서 하나로 더 읽어 오는 문서 수. */
+    public static final int PAGE_SIZE = 25;
+
+    /** "내 주변" 목록에서 내 위아래로 보여 줄 사람 수. 모두 2 * 10 + 1 = 21 줄이다. */
+    public static final int NEIGHBORHOOD_RADIUS = 10;
+
+    /**
+     * uid 의 점수 분포 샤드 번호. 한 사용자는 늘 같은 샤드를 쓰므로 이전 칸을 빼는 것도 같은 샤드 안에서 끝난다.
+     * String.hashCode 는 명세로 정해져 있어 기기와 서버 작업이 같은 값을 얻는다.
+     */
+    public static int histogramShard(String uid) {
+        return (uid.hashCode() & 0x7fffffff) % HISTOGRAM_SHARDS;
+    }
+
+    /** 전체 기간 기록 문서 경로 rankings/{uid}. */
+    public static String recordPath(String uid) {
+        return COLLECTION_RANKINGS + "/" + uid;
+    }
+
+    /** 프로필 문서 경로 profiles/{uid}. */
+    public static String profilePath(String uid) {
+        return COLLECTION_PROFILES + "/" + uid;
+    }
+
+    /** 점수 분포 샤드 문서 경로 rankingStats/histogram/shards/{shard}. */
+    public static String histogramShardPath(int shard) {
+        return COLLECTION_STATS + "/" + DOC_HISTOGRAM + "/" + COLLECTION_SHARDS + "/" + shard;
+    }
+}
@@ -0,0 +1,99 @@
+package com.cookandroid.findcolorgame.core.ranking;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * 최근에 받은 gameId 몇 개. 가득 차면 가장 오래된 것부터 잊는다.
+ * 파일을 주면 save 때마다 한 줄에 하나씩 써 두므로, 프로세스가 죽은 뒤 되살린 게임이
+ * 같은 gameId 로 다시 끝나도 알아본다.
+ */
+public class RecentGameIds {
+
+    private final File file; // null 이면 메모리에만 둔다
+    private final int capacity;
+    private final Set<String> gameIds = new LinkedHashSet<>();
+
+    public RecentGameIds(int capacity) {
+        this.file = null;
+        this.capacity = capacity;
+    }
+
+    /**
+     * file 에 남아 있는 gameId 를 읽어 온다. 파일이 없으면 비어 있는 채로 시작한다.
+     */
+    public RecentGameIds(File file, int capacity) throws IOException {
+        this.file = file;
+        this.capacity = capacity;
+        BufferedReader reader;
+        try {
+            reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8));
+        } catch (FileNotFoundException e) {
+            return;
+        }
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty()) {
+                    add(line);
+                }
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * @return 처음 본 gameId 면 true
+     */
+    public synchronized boolean add(String gameId) {
+        if (!gameIds.add(gameId)) {
+            return false;
+        }
+        if (gameIds.size() > capacity) {
+            Iterator<String> oldest = gameIds.iterator();
+            oldest.next();
+            oldest.remove();
+        }
+        return true;
+    }
+
+    /**
+     * 지금 목록을 임시 파일에 쓴 뒤 바꿔 끼운다. 파일 없이 만들었으면 아무것도 하지 않는다.
+     */
+    public synchronized void save() throws IOException {
+        if (file == null) {
+            return;
+        }
+        File temp = new File(file.getPath() + ".tmp");
+        FileOutputStream out = new FileOutputStream(temp);
+        try {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            for (String gameId : gameIds) {
+                writer.write(gameId);
+                writer.write('\n');
+            }
+            writer.flush();
+            out.getFD().sync();
+        } finally {
+            out.close();
+        }
+        if (!temp.renameTo(file)) {
+            if (!file.delete() || !temp.renameTo(file)) {
+                throw new IOException("Cannot replace " + file);
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.cookandroid.findcolorgame.core.ranking;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * ScoreQueue 의 묶음을 RankingRepository.submit 으로 나눠 보내는 ScoreBackend.
+ * 전용 배치 쓰기가 없는 저장소(Realtime Database, 메모리)에 쓴다.
+ */
+public class RepositoryScoreBackend implements ScoreBackend {
+
+    private static final long TIMEOUT_SECONDS = 30;
+
+    private final RankingRepository repository;
+
+    public RepositoryScoreBackend(RankingRepository repository) {
+        this.repository = repository;
+    }
+
+    @Override
+    public void writeBatch(List<PendingScore> scores) throws IOException {
+        CompletableFuture<?>[] writes = new CompletableFuture<?>[scores.size()];
+        for (int i = 0; i < scores.size(); i++) {
+            PendingScore score = scores.get(i);
+            writes[i] = repository.submit(score.getUid(), score.getName(), score.getScore());
+        }
+        try {
+            CompletableFuture.allOf(writes).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IOException("Ranking batch write failed", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Ranking batch write interrupted", e);
+        }
+    }
+}
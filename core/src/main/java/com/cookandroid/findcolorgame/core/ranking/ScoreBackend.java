@@ -0,0 +1,17 @@
+package com.cookandroid.findcolorgame.core.ranking;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 모아 둔 점수를 서버에 쓰는 곳. 백그라운드 스레드에서 호출되므로 끝날 때까지 막아도 된다.
+ */
+public interface ScoreBackend {
+
+    /**
+     * scores 를 한 번에 쓴다. 각 사용자 점수는 서버 값보다 클 때만 반영해야 한다.
+     *
+     * @throws IOException 네트워크 오류 등으로 쓰지 못했을 때. 큐는 그대로 남는다.
+     */
+    void writeBatch(List<PendingScore> scores) throws IOException;
+}
@@ -0,0 +1,124 @@
+package com.cookandroid.findcolorgame.core.ranking;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 점수(도달한 스테이지)별 사용자 수. 서버에는 rankingStats/histogram 아래 샤드 문서들로 저장되고,
+ * 점수가 바뀔 때마다 그 사용자 샤드에서 이전 칸을 1 빼고 새 칸을 1 더한다.
+ * 작은 샤드 문서들만 읽으면 랭킹 전체를 내려받지 않고도 순위와 백분위를 칸 수만큼의 계산으로 구할 수 있다.
+ * 분포를 쓰기 전부터 있던 기록은 증감만으로는 세어지지 않으므로 :compactor 의 backfill-histogram 으로 한 번 다시 센다.
+ */
+public final class ScoreHistogram {
+
+    public static final ScoreHistogram EMPTY = new ScoreHistogram(new int[0], new long[0]);
+
+    /** 오름차순 점수. */
+    private final int[] scores;
+    private final long[] counts;
+    private final long total;
+
+    private ScoreHistogram(int[] scores, long[] counts) {
+        this.scores = scores;
+        this.counts = counts;
+        long sum = 0;
+        for (long count : counts) {
+            sum += count;
+        }
+        this.total = sum;
+    }
+
+    /**
+     * 서버 문서의 buckets 맵(키는 점수 문자열)으로 만든다. 숫자가 아니거나 0 이하인 칸은 버린다.
+     */
+    public static ScoreHistogram fromBuckets(Map<String, ? extends Number> buckets) {
+        return fromShards(Collections.<Map<String, ? extends Number>>singletonList(buckets));
+    }
+
+    /**
+     * 샤드들의 buckets 맵을 칸별로 더한다.
+     */
+    public static ScoreHistogram fromShards(List<? extends Map<String, ? extends Number>> shards) {
+        TreeMap<Integer, Long> sorted = new TreeMap<>();
+        for (Map<String, ? extends Number> buckets : shards) {
+            for (Map.Entry<String, ? extends Number> bucket : buckets.entrySet()) {
+                long count = bucket.getValue() != null ? bucket.getValue().longValue() : 0;
+                try {
+                    sorted.merge(Integer.parseInt(bucket.getKey()), count, Long::sum);
+                } catch (NumberFormatException ignored) {
+                    // 알 수 없는 필드
+                }
+            }
+        }
+        sorted.values().removeIf(count -> count <= 0);
+        return fromCounts(sorted);
+    }
+
+    public static ScoreHistogram fromCounts(Map<Integer, Long> countsByScore) {
+        TreeMap<Integer, Long> sorted = new TreeMap<>(countsByScore);
+        int[] scores = new int[sorted.size()];
+        long[] counts = new long[sorted.size()];
+        int i = 0;
+        for (Map.Entry<Integer, Long> bucket : sorted.entrySet()) {
+            scores[i] = bucket.getKey();
+            counts[i] = bucket.getValue();
+            i++;
+        }
+        return new ScoreHistogram(scores, counts);
+    }
+
+    /**
+     * 칸 이름. Firestore 맵 필드와 Realtime Database 자식 키로 그대로 쓴다.
+     */
+    public static String bucketKey(int score) {
+        return Integer.toString(score);
+    }
+
+    /**
+     * 점수가 oldScore 에서 newScore 로 바뀔 때 칸별 증감을 deltas 에 더한다. oldScore 가 null 이면 새 사용자다.
+     * 묶음 쓰기에서 여러 사용자의 변경을 모아 문서 한 번 쓰기로 보낼 때 쓴다.
+     */
+    public static void addChange(Map<String, Long> deltas, Integer oldScore, int newScore) {
+        if (oldScore != null) {
+            if (oldScore == newScore) {
+                return;
+            }
+            deltas.merge(bucketKey(oldScore), -1L, Long::sum);
+        }
+        deltas.merge(bucketKey(newScore), 1L, Long::sum);
+    }
+
+    public long total() {
+        return total;
+    }
+
+    /**
+     * score 칸의 사용자 수.
+     */
+    public long countOf(int score) {
+        int index = Arrays.binarySearch(scores, score);
+        return index >= 0 ? counts[index] : 0;
+    }
+
+    /**
+     * score 를 가진 사용자의 순위 (자기보다 높은 점수의 사용자 수 + 1).
+     */
+    public long rankOf(int score) {
+        long higher = 0;
+        for (int i = scores.length - 1; i >= 0 && scores[i] > score; i--) {
+            higher += counts[i];
+        }
+        return higher + 1;
+    }
+
+    /**
+     * 상위 몇 % 인지 (0 초과 100 이하). 아직 집계에 안 들어간 점수여도 100 을 넘지 않는다.
+     */
+    public double topPercent(int score) {
+        long rank = rankOf(score);
+        return rank * 100.0 / Math.max(total, rank);
+    }
+}
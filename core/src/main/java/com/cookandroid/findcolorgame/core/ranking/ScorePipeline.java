@@ -0,0 +1,190 @@
+package com.cookandroid.findcolorgame.core.ranking;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 게임 종료 점수 하나를 여러 곳(자체 랭킹, Play 게임즈 리더보드 등)에 동시에 보낸다.
+ * 같은 gameId 는 한 번만 보내고, 곳마다 따로 Backoff 로 다시 시도하므로 한 곳이 느리거나
+ * 실패해도 다른 곳은 기다리지 않는다. 곳마다 걸린 시간은 SinkStats 에 쌓인다.
+ * 받은 gameId 는 RecentGameIds 에 두며, 파일로 만든 RecentGameIds 를 주면 프로세스가 다시 떠도 기억한다.
+ */
+public class ScorePipeline {
+
+    /**
+     * 점수를 받는 곳 하나.
+     */
+    public interface Sink {
+
+        /**
+         * 로그와 통계에 쓰는 이름. 파이프라인 안에서 겹치지 않아야 한다.
+         */
+        String getName();
+
+        /**
+         * 점수 하나를 보낸다. 백그라운드 스레드에서 불리므로 끝날 때까지 막아도 된다.
+         *
+         * @throws Exception 보내지 못했을 때. 시도 횟수가 남아 있으면 다시 부른다.
+         */
+        void send(PendingScore score) throws Exception;
+    }
+
+    /**
+     * 곳마다 한 번 시도가 끝날 때 불린다. 시도 스레드에서 불린다.
+     */
+    public interface Listener {
+
+        /**
+         * @param error 성공했으면 null
+         * @param willRetry 실패했고 다시 시도할 예정이면 true
+         */
+        void onAttempt(String sinkName, PendingScore score, int attempt, long latencyNanos, Exception error,
+                       boolean willRetry);
+    }
+
+    /** 기억해 둘 최근 gameId 수. */
+    public static final int RECENT_GAME_IDS = 64;
+
+    private final Map<String, SinkStats> stats = new LinkedHashMap<>();
+    private final List<Sink> sinks;
+    private final ScheduledExecutorService executor;
+    private final Backoff backoff;
+    private final int maxAttempts;
+    private final RecentGameIds recentGameIds;
+    private volatile Listener listener;
+
+    /**
+     * @param executor 곳마다 동시에 보내려면 스레드가 sinks 수만큼 있어야 한다
+     * @param maxAttempts 곳마다 최대 시도 횟수 (첫 시도 포함)
+     */
+    public ScorePipeline(List<Sink> sinks, ScheduledExecutorService executor, Backoff backoff, int maxAttempts) {
+        this(sinks, executor, backoff, maxAttempts, new RecentGameIds(RECENT_GAME_IDS));
+    }
+
+    /**
+     * @param recentGameIds 이미 보낸 gameId. 파일로 만든 것이면 새 gameId 를 받을 때마다 executor 에서 저장한다
+     */
+    public ScorePipeline(List<Sink> sinks, ScheduledExecutorService executor, Backoff backoff, int maxAttempts,
+                         RecentGameIds recentGameIds) {
+        this.recentGameIds = recentGameIds;
+        this.sinks = new ArrayList<>(sinks);
+        this.executor = executor;
+        this.backoff = backoff;
+        this.maxAttempts = maxAttempts;
+        for (Sink sink : sinks) {
+            stats.put(sink.getName(), new SinkStats());
+        }
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * 모든 곳에 보내기를 예약하고 바로 돌아온다.
+     *
+     * @return 처음 본 gameId 면 true, 최근에 이미 받은 gameId 면 false
+     */
+    public boolean submit(PendingScore score) {
+        if (!recentGameIds.add(score.getGameId())) {
+            return false;
+        }
+        executor.execute(() -> {
+            try {
+                recentGameIds.save();
+            } catch (IOException ignored) {
+                // 메모리에는 남아 있으므로 이번 실행 동안은 그대로 막는다
+            }
+        });
+        for (Sink sink : sinks) {
+            executor.execute(() -> attempt(sink, score, 0));
+        }
+        return true;
+    }
+
+    /**
+     * 이름별 누적 통계. 등록한 순서대로.
+     */
+    public Map<String, SinkStats> getStats() {
+        return Collections.unmodifiableMap(stats);
+    }
+
+    private void attempt(Sink sink, PendingScore score, int attempt) {
+        long begin = System.nanoTime();
+        Exception error = null;
+        try {
+            sink.send(score);
+        } catch (Exception e) {
+            error = e;
+        }
+        long latencyNanos = System.nanoTime() - begin;
+        boolean willRetry = error != null && attempt + 1 < maxAttempts;
+        stats.get(sink.getName()).record(latencyNanos, error == null, willRetry);
+
+        Listener current = listener;
+        if (current != null) {
+            current.onAttempt(sink.getName(), score, attempt, latencyNanos, error, willRetry);
+        }
+        if (willRetry) {
+            executor.schedule(() -> attempt(sink, score, attempt + 1), backoff.delayMillis(attempt),
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 곳 하나의 누적 결과. 시도마다 걸린 시간을 성공/실패 구분 없이 센다.
+     */
+    public static final class SinkStats {
+
+        private int successes;
+        private int failures; // 다시 시도하지 않고 포기한 점수
+        private int retries;
+        private long totalLatencyNanos;
+        private long maxLatencyNanos;
+        private long lastLatencyNanos;
+
+        synchronized void record(long latencyNanos, boolean success, boolean willRetry) {
+            if (success) {
+                successes++;
+            } else if (willRetry) {
+                retries++;
+            } else {
+                failures++;
+            }
+            totalLatencyNanos += latencyNanos;
+            maxLatencyNanos = Math.max(maxLatencyNanos, latencyNanos);
+            lastLatencyNanos = latencyNanos;
+        }
+
+        public synchronized int getSuccesses() {
+            return successes;
+        }
+
+        public synchronized int getFailures() {
+            return failures;
+        }
+
+        public synchronized int getRetries() {
+            return retries;
+        }
+
+        public synchronized long getMeanLatencyNanos() {
+            int attempts = successes + failures + retries;
+            return attempts == 0 ? 0 : totalLatencyNanos / attempts;
+        }
+
+        public synchronized long getMaxLatencyNanos() {
+            return maxLatencyNanos;
+        }
+
+        public synchronized long getLastLatencyNanos() {
+            return lastLatencyNanos;
+        }
+    }
+}
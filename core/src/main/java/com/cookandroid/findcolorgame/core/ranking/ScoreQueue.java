@@ -0,0 +1,258 @@
+package com.cookandroid.findcolorgame.core.ranking;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 서버에 아직 쓰지 못한 점수를 파일에 먼저 기록하는 큐(write-ahead log).
+ * 앱이 꺼지거나 네트워크가 없어도 점수가 사라지지 않으며, 같은 사용자의 같은 날 결과가 여러 개 쌓이면
+ * 가장 높은 점수 하나로 합쳐 한 번에 보낸다. 날이 다르면 일간 랭킹에 각각 들어가야 하므로 합치지 않는다.
+ *
+ * <p>파일에는 기록이 하나씩 이어 붙고, flush 가 성공할 때마다 남은 기록만으로 다시 쓴다.
+ * 기록 도중 앱이 죽어 끝부분이 잘린 기록은 읽을 때 버리고 파일에서도 잘라 낸다.
+ */
+public class ScoreQueue {
+
+    // 이미 보낸 게임이 다시 들어오는 것을 막기 위해 기억해 두는 최근 gameId 수
+    private static final int MAX_RECENT_GAME_IDS = 256;
+
+    private final File file;
+    private final Map<String, PendingScore> bestByKey = new LinkedHashMap<>(); // "uid/날짜" -> 최고 점수
+    private final Set<String> queuedGameIds = new HashSet<>();
+    private final Set<String> recentlyFlushedGameIds = new LinkedHashSet<>();
+
+    public ScoreQueue(File file) throws IOException {
+        this.file = file;
+        load();
+    }
+
+    /**
+     * 점수를 파일에 기록한 뒤 큐에 넣는다. 이미 받은 gameId 면 무시한다.
+     *
+     * @return 새로 들어갔으면 true
+     */
+    public synchronized boolean enqueue(PendingScore score) throws IOException {
+        String gameId = score.getGameId();
+        if (queuedGameIds.contains(gameId) || recentlyFlushedGameIds.contains(gameId)) {
+            return false;
+        }
+        FileOutputStream out = new FileOutputStream(file, true);
+        try {
+            DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+            writeRecord(data, score);
+            data.flush();
+            out.getFD().sync();
+        } finally {
+            out.close();
+        }
+        queuedGameIds.add(gameId);
+        coalesce(score);
+        return true;
+    }
+
+    /**
+     * 사용자별로 가장 높은 점수 하나씩.
+     */
+    public synchronized List<PendingScore> pending() {
+        return new ArrayList<>(bestByKey.values());
+    }
+
+    public synchronized boolean isEmpty() {
+        return bestByKey.isEmpty();
+    }
+
+    /**
+     * 쌓인 점수를 backend 에 한 번에 보낸다. 성공하면 보낸 점수를 큐와 파일에서 지운다.
+     * 보내는 동안 같은 사용자의 더 높은 점수가 들어왔으면 그것은 남겨 둔다.
+     *
+     * @throws IOException backend 가 실패했을 때. 큐는 그대로 남는다.
+     */
+    public boolean flush(ScoreBackend backend) throws IOException {
+        List<PendingScore> batch = pending();
+        if (batch.isEmpty()) {
+            return false;
+        }
+        backend.writeBatch(Collections.unmodifiableList(batch));
+
+        synchronized (this) {
+            for (PendingScore sent : batch) {
+                if (bestByKey.get(coalesceKey(sent)) == sent) {
+                    bestByKey.remove(coalesceKey(sent));
+                }
+            }
+            // 합쳐지면서 보내지 않은 낮은 점수들도 이제 필요 없다
+            Set<String> remaining = new HashSet<>();
+            for (PendingScore score : bestByKey.values()) {
+                remaining.add(score.getGameId());
+            }
+            for (String gameId : queuedGameIds) {
+                if (!remaining.contains(gameId)) {
+                    rememberFlushed(gameId);
+                }
+            }
+            queuedGameIds.retainAll(remaining);
+            rewrite();
+        }
+        return true;
+    }
+
+    private void coalesce(PendingScore score) {
+        String key = coalesceKey(score);
+        PendingScore existing = bestByKey.get(key);
+        if (existing == null || score.getScore() > existing.getScore()) {
+            bestByKey.put(key, score);
+        }
+    }
+
+    private static String coalesceKey(PendingScore score) {
+        return score.getUid() + "/" + LeaderboardWindow.DAILY.bucketKey(score.getCreatedAtMillis());
+    }
+
+    private void rememberFlushed(String gameId) {
+        recentlyFlushedGameIds.add(gameId);
+        if (recentlyFlushedGameIds.size() > MAX_RECENT_GAME_IDS) {
+            String eldest = recentlyFlushedGameIds.iterator().next();
+            recentlyFlushedGameIds.remove(eldest);
+        }
+    }
+
+    private void load() throws IOException {
+        if (!file.exists()) {
+            return;
+        }
+        long validLength = 0; // 마지막으로 온전히 읽은 기록의 끝
+        CountingInputStream counter = new CountingInputStream(new FileInputStream(file));
+        DataInputStream in = new DataInputStream(new BufferedInputStream(counter));
+        try {
+            while (true) {
+                PendingScore score;
+                try {
+                    score = readRecord(in);
+                } catch (EOFException e) {
+                    break; // 파일 끝, 또는 기록 도중 잘린 마지막 기록
+                }
+                validLength = counter.count - in.available(); // 버퍼에 읽어 두고 아직 쓰지 않은 만큼 뺀다
+                if (queuedGameIds.add(score.getGameId())) {
+                    coalesce(score);
+                }
+            }
+        } finally {
+            in.close();
+        }
+        // 잘린 기록 뒤에 이어 붙이면 다음에 읽을 때 그 뒤 기록까지 모두 깨지므로 먼저 잘라 낸다
+        if (validLength < file.length()) {
+            RandomAccessFile raf = new RandomAccessFile(file, "rw");
+            try {
+                raf.setLength(validLength);
+                raf.getFD().sync();
+            } finally {
+                raf.close();
+            }
+        }
+    }
+
+    /**
+     * 남은 기록만으로 임시 파일을 쓴 뒤 바꿔 끼운다.
+     */
+    private void rewrite() throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+        FileOutputStream out = new FileOutputStream(temp);
+        try {
+            DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+            for (PendingScore score : bestByKey.values()) {
+                writeRecord(data, score);
+            }
+            data.flush();
+            out.getFD().sync();
+        } finally {
+            out.close();
+        }
+        if (!temp.renameTo(file)) {
+            if (!file.delete() || !temp.renameTo(file)) {
+                throw new IOException("Cannot replace " + file);
+            }
+        }
+    }
+
+    /**
+     * 지금까지 읽어 간 바이트 수를 센다. 버퍼에 남은 만큼을 빼면 기록 경계의 파일 위치가 된다.
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+
+        long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        /**
+         * 0 으로 두어야 감싼 버퍼의 available() 이 버퍼에 남은 바이트 수만 돌려준다.
+         */
+        @Override
+        public int available() {
+            return 0;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+
+    private static void writeRecord(DataOutputStream out, PendingScore score) throws IOException {
+        out.writeUTF(score.getGameId());
+        out.writeUTF(score.getUid());
+        out.writeBoolean(score.getName() != null);
+        out.writeUTF(score.getName() != null ? score.getName() : "");
+        out.writeInt(score.getScore());
+        out.writeLong(score.getCreatedAtMillis());
+    }
+
+    private static PendingScore readRecord(DataInputStream in) throws IOException {
+        String gameId = in.readUTF();
+        String uid = in.readUTF();
+        boolean hasName = in.readBoolean();
+        String name = in.readUTF();
+        int score = in.readInt();
+        long createdAtMillis = in.readLong();
+        return new PendingScore(gameId, uid, hasName ? name : null, score, createdAtMillis);
+    }
+}
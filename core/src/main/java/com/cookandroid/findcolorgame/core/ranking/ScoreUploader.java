@@ -0,0 +1,79 @@
+package com.cookandroid.findcolorgame.core.ranking;
+
+import java.io.IOException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ScoreQueue 를 백그라운드에서 비운다. 실패하면 Backoff 만큼 기다렸다가 다시 시도하고,
+ * 네트워크가 돌아왔다는 신호(requestFlush)가 오면 기다리지 않고 바로 시도한다.
+ */
+public class ScoreUploader {
+
+    private final ScoreQueue queue;
+    private final ScoreBackend backend;
+    private final ScheduledExecutorService executor;
+    private final Backoff backoff;
+
+    private int failedAttempts;
+    private Future<?> scheduled;
+
+    private final Runnable flushTask = this::runFlush;
+
+    /**
+     * @param executor 단일 스레드여야 한다. flush 는 한 번에 하나씩만 돈다.
+     */
+    public ScoreUploader(ScoreQueue queue, ScoreBackend backend, ScheduledExecutorService executor,
+                         Backoff backoff) {
+        this.queue = queue;
+        this.backend = backend;
+        this.executor = executor;
+        this.backoff = backoff;
+    }
+
+    /**
+     * 업로드 스레드에서 점수를 큐(파일)에 기록한 뒤 바로 flush 한다. 호출한 스레드는 막지 않는다.
+     *
+     * @return 기록 결과. 같은 gameId 가 이미 있었으면 false, 파일에 쓰지 못했으면 IOException 으로 끝난다.
+     */
+    public Future<Boolean> submit(PendingScore score) {
+        return executor.submit(() -> {
+            boolean added = queue.enqueue(score);
+            if (added) {
+                requestFlush();
+            }
+            return added;
+        });
+    }
+
+    /**
+     * 예약된 재시도를 취소하고 지금 바로 flush 한다.
+     */
+    public synchronized void requestFlush() {
+        if (scheduled != null) {
+            scheduled.cancel(false);
+        }
+        failedAttempts = 0;
+        scheduled = executor.submit(flushTask);
+    }
+
+    synchronized int getFailedAttempts() {
+        return failedAttempts;
+    }
+
+    private void runFlush() {
+        try {
+            queue.flush(backend);
+            synchronized (this) {
+                failedAttempts = 0;
+                scheduled = null;
+            }
+        } catch (IOException | RuntimeException e) {
+            synchronized (this) {
+                long delay = backoff.delayMillis(failedAttempts++);
+                scheduled = executor.schedule(flushTask, delay, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.cookandroid.findcolorgame.core.ranking;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * 점수 묶음 하나를 Firestore 트랜잭션에 쓰는 계획. SDK 에 기대지 않으므로 앱(Android SDK), 부하 테스트와
+ * 압축 작업(서버 SDK)이 같은 규칙으로 쓴다. 어댑터는 문서 경로만 SDK 참조로 바꿔 읽고 쓴다.
+ * <ol>
+ * <li>readPaths() 의 문서를 모두 읽는다 (트랜잭션은 읽기가 쓰기보다 먼저다).</li>
+ * <li>resolve(읽은 값) 으로 쓸 것을 정한다. 기록은 서버 값보다 클 때만 올리고, 1 판 기록은 점수가 같아도
+ *     2 판으로 바꿔 쓴다. 전체 기간 기록이 바뀌면 그 사용자 샤드에 점수 분포 증감을 더한다.</li>
+ * <li>sets() 는 그대로 set 하고, shardDeltas() 의 샤드마다 bucketIncrements(...) 를 merge 로 set 한다.</li>
+ * </ol>
+ * 트랜잭션이 충돌로 다시 실행되면 resolve 도 새로 읽은 값으로 다시 부르면 된다.
+ */
+public final class ScoreWritePlan {
+
+    /** 기록 경로별로 올릴 점수와 그 주인. */
+    private final Map<String, RankEntry> records;
+    /** uid 별로 쓸 이름. */
+    private final Map<String, String> names;
+    /** false 면 프로필이 없을 때만 이름을 쓴다 (이전 작업이 기기에서 바꾼 이름을 덮지 않게). */
+    private final boolean replaceNames;
+
+    private final Map<String, Map<String, Object>> sets = new LinkedHashMap<>();
+    private final Map<Integer, Map<String, Long>> shardDeltas = new TreeMap<>();
+    private int raised;
+
+    private ScoreWritePlan(Map<String, RankEntry> records, Map<String, String> names, boolean replaceNames) {
+        this.records = records;
+        this.names = names;
+        this.replaceNames = replaceNames;
+    }
+
+    /**
+     * 기기에서 모은 점수 묶음. 점수 하나는 모든 기간의 문서에 들어가고, 이름은 사용자마다 가장 늦은 게임의 것을 쓴다.
+     */
+    public static ScoreWritePlan forBatch(Collection<PendingScore> scores) {
+        Map<String, RankEntry> records = new LinkedHashMap<>();
+        for (Map.Entry<String, PendingScore> best : LeaderboardWindow.bestByDocumentPath(scores).entrySet()) {
+            PendingScore score = best.getValue();
+            records.put(best.getKey(), new RankEntry(score.getUid(), null, score.getScore()));
+        }
+        Map<String, PendingScore> latestByUid = new LinkedHashMap<>();
+        for (PendingScore score : scores) {
+            PendingScore latest = latestByUid.get(score.getUid());
+            if (latest == null || score.getCreatedAtMillis() >= latest.getCreatedAtMillis()) {
+                latestByUid.put(score.getUid(), score);
+            }
+        }
+        Map<String, String> names = new LinkedHashMap<>();
+        for (PendingScore latest : latestByUid.values()) {
+            names.put(latest.getUid(), latest.getName());
+        }
+        return new ScoreWritePlan(records, names, true);
+    }
+
+    /**
+     * ranking/totalRanking 에서 옮겨 오는 전체 기간 기록들. 프로필이 이미 있으면 이름은 두고 점수만 합친다.
+     */
+    public static ScoreWritePlan forLegacyEntries(Collection<RankEntry> entries) {
+        Map<String, RankEntry> records = new LinkedHashMap<>();
+        Map<String, String> names = new LinkedHashMap<>();
+        for (RankEntry entry : entries) {
+            String path = RankingSchema.recordPath(entry.getUid());
+            RankEntry existing = records.get(path);
+            if (existing == null || entry.getScore() > existing.getScore()) {
+                records.put(path, new RankEntry(entry.getUid(), null, entry.getScore()));
+            }
+            if (entry.getName() != null) {
+                names.put(entry.getUid(), entry.getName());
+            }
+        }
+        return new ScoreWritePlan(records, names, false);
+    }
+
+    /**
+     * 트랜잭션에서 먼저 읽어야 할 문서 경로. 기록들 다음에 프로필들이 온다.
+     */
+    public List<String> readPaths() {
+        List<String> paths = new ArrayList<>(records.size() + names.size());
+        paths.addAll(records.keySet());
+        for (String uid : names.keySet()) {
+            paths.add(RankingSchema.profilePath(uid));
+        }
+        return paths;
+    }
+
+    /**
+     * 읽은 문서들(경로별 필드, 없는 문서는 null 이거나 빠져 있다)로 쓸 것을 정한다. 이전 resolve 결과는 버린다.
+     */
+    public void resolve(Map<String, ? extends Map<String, ?>> current) {
+        sets.clear();
+        shardDeltas.clear();
+        raised = 0;
+        for (Map.Entry<String, RankEntry> record : records.entrySet()) {
+            String path = record.getKey();
+            RankEntry target = record.getValue();
+            Map<String, ?> fields = current.get(path);
+            Integer score = RankingRecordCodec.scoreOf(fields);
+            if (score != null && score >= target.getScore()) {
+                if (fields != null && !RankingRecordCodec.isCurrent(fields)) {
+                    sets.put(path, RankingRecordCodec.encodeRecord(score)); // 형식만 바꾼다
+                }
+                continue;
+            }
+            sets.put(path, RankingRecordCodec.encodeRecord(target.getScore()));
+            raised++;
+            if (path.equals(RankingSchema.recordPath(target.getUid()))) {
+                ScoreHistogram.addChange(shardDeltas.computeIfAbsent(
+                        RankingSchema.histogramShard(target.getUid()), shard -> new HashMap<>()),
+                        score, target.getScore());
+            }
+        }
+        for (Map.Entry<String, String> name : names.entrySet()) {
+            String path = RankingSchema.profilePath(name.getKey());
+            Map<String, ?> profile = current.get(path);
+            if (name.getValue() == null || name.getValue().equals(RankingRecordCodec.profileNameOf(profile))) {
+                continue;
+            }
+            if (replaceNames || profile == null) {
+                sets.put(path, RankingRecordCodec.encodeProfile(name.getValue()));
+            }
+        }
+    }
+
+    /**
+     * 경로별로 통째로 set 할 기록과 프로필.
+     */
+    public Map<String, Map<String, Object>> sets() {
+        return Collections.unmodifiableMap(sets);
+    }
+
+    /**
+     * 샤드 경로별 점수 분포 증감. 0 인 칸은 빼고, 남는 칸이 없는 샤드도 뺀다.
+     */
+    public Map<String, Map<String, Long>> shardDeltas() {
+        Map<String, Map<String, Long>> byPath = new LinkedHashMap<>();
+        for (Map.Entry<Integer, Map<String, Long>> shard : shardDeltas.entrySet()) {
+            Map<String, Long> changed = new HashMap<>();
+            for (Map.Entry<String, Long> delta : shard.getValue().entrySet()) {
+                if (delta.getValue() != 0) {
+                    changed.put(delta.getKey(), delta.getValue());
+                }
+            }
+            if (!changed.isEmpty()) {
+                byPath.put(RankingSchema.histogramShardPath(shard.getKey()), changed);
+            }
+        }
+        return byPath;
+    }
+
+    /**
+     * 샤드 하나에 merge 로 쓸 {buckets: {점수: increment(증감)}}. increment 는 SDK 의 FieldValue::increment 다.
+     */
+    public static Map<String, Object> bucketIncrements(Map<String, Long> deltas, Function<Long, Object> increment) {
+        Map<String, Object> increments = new HashMap<>();
+        for (Map.Entry<String, Long> delta : deltas.entrySet()) {
+            increments.put(delta.getKey(), increment.apply(delta.getValue()));
+        }
+        Map<String, Object> update = new HashMap<>();
+        update.put(RankingSchema.FIELD_BUCKETS, increments);
+        return update;
+    }
+
+    /**
+     * 새로 들어가거나 점수가 오른 기록 수.
+     */
+    public int raisedRecords() {
+        return raised;
+    }
+}
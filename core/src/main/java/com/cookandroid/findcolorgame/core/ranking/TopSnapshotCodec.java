@@ -0,0 +1,98 @@
+package com.cookandroid.findcolorgame.core.ranking;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * rankingStats/top100 문서 필드와 RankEntry 목록 사이의 변환.
+ * 문서를 쓰는 :compactor 와 읽는 앱이 같은 형식을 쓰도록 여기 한 곳에 둔다.
+ * 2 판은 줄마다 필드 이름을 되풀이하지 않도록 u/s/n 배열 세 개에 같은 순서로 담는다.
+ */
+public final class TopSnapshotCodec {
+
+    private TopSnapshotCodec() {
+    }
+
+    /**
+     * 문서에 쓸 필드들 (updatedAt 은 쓰는 쪽이 넣는다).
+     */
+    public static Map<String, Object> encode(List<RankEntry> entries) {
+        List<String> uids = new ArrayList<>(entries.size());
+        List<Integer> scores = new ArrayList<>(entries.size());
+        List<String> names = new ArrayList<>(entries.size());
+        for (RankEntry entry : entries) {
+            uids.add(entry.getUid());
+            scores.add(entry.getScore());
+            names.add(entry.getName());
+        }
+        Map<String, Object> fields = new HashMap<>();
+        fields.put(RankingSchema.FIELD_VERSION, RankingSchema.SCHEMA_VERSION);
+        fields.put(RankingSchema.FIELD_TOP_UIDS, uids);
+        fields.put(RankingSchema.FIELD_COMPACT_SCORE, scores);
+        fields.put(RankingSchema.FIELD_COMPACT_NAME, names);
+        return fields;
+    }
+
+    /**
+     * 문서 필드 전체. 2 판이 아니면 1 판 entries 배열로 읽는다. 문서가 없으면(null) 빈 목록.
+     */
+    public static List<RankEntry> decode(Map<String, ?> fields) {
+        if (fields == null) {
+            return Collections.emptyList();
+        }
+        if (!RankingRecordCodec.isCurrent(fields)) {
+            return decodeEntries(fields.get(RankingSchema.FIELD_ENTRIES));
+        }
+        Object uids = fields.get(RankingSchema.FIELD_TOP_UIDS);
+        Object scores = fields.get(RankingSchema.FIELD_COMPACT_SCORE);
+        Object names = fields.get(RankingSchema.FIELD_COMPACT_NAME);
+        if (!(uids instanceof List) || !(scores instanceof List)) {
+            return Collections.emptyList();
+        }
+        List<?> uidList = (List<?>) uids;
+        List<?> scoreList = (List<?>) scores;
+        List<?> nameList = names instanceof List ? (List<?>) names : Collections.emptyList();
+        int size = Math.min(uidList.size(), scoreList.size());
+        List<RankEntry> entries = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Object uid = uidList.get(i);
+            Object score = scoreList.get(i);
+            Object name = i < nameList.size() ? nameList.get(i) : null;
+            if (!(uid instanceof String)) {
+                continue;
+            }
+            entries.add(new RankEntry((String) uid, name instanceof String ? (String) name : null,
+                    score instanceof Number ? ((Number) score).intValue() : 0));
+        }
+        return entries;
+    }
+
+    /**
+     * 1 판 entries 배열. 배열이 아니거나 uid 가 없는 줄은 건너뛴다.
+     */
+    private static List<RankEntry> decodeEntries(Object entriesField) {
+        if (!(entriesField instanceof List)) {
+            return Collections.emptyList();
+        }
+        List<?> rows = (List<?>) entriesField;
+        List<RankEntry> entries = new ArrayList<>(rows.size());
+        for (Object row : rows) {
+            if (!(row instanceof Map)) {
+                continue;
+            }
+            Map<?, ?> fields = (Map<?, ?>) row;
+            Object uid = fields.get(RankingSchema.FIELD_KEY);
+            Object name = fields.get(RankingSchema.FIELD_NAME);
+            Object score = fields.get(RankingSchema.FIELD_SCORE);
+            if (!(uid instanceof String)) {
+                continue;
+            }
+            entries.add(new RankEntry((String) uid, name instanceof String ? (String) name : null,
+                    score instanceof Number ? ((Number) score).intValue() : 0));
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,112 @@
+package com.cookandroid.findcolorgame.core;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class GameEngineTest {
+
+    private static final int SPACING = 8;
+
+    @Test
+    public void darkenColor_isTwentyPercentDarker() {
+        int color = ColorUtils.rgb(200, 150, 100);
+        int darker = ColorUtils.darkenColor(color);
+        assertEquals(160, ColorUtils.red(darker));
+        assertEquals(120, ColorUtils.green(darker));
+        assertEquals(80, ColorUtils.blue(darker));
+        assertEquals(0xFF, darker >>> 24);
+    }
+
+    @Test
+    public void buildStage_hasExactlyOneOddTile() {
+        GameEngine engine = new GameEngine(new StageGenerator(new Random(42)));
+        assertTrue(engine.buildStage(1000, 900, SPACING));
+
+        Stage stage = engine.getStage();
+        assertEquals(GameEngine.INITIAL_GRID_SIZE, stage.getGridSize());
+        int oddCount = 0;
+        for (int i = 0; i < stage.getTotalTiles(); i++) {
+            if (stage.getColors()[i] == stage.getOddColor()) {
+                oddCount++;
+                assertTrue(engine.isOddTile(i));
+            } else {
+                assertEquals(stage.getBaseColor(), stage.getColors()[i]);
+            }
+        }
+        assertEquals(1, oddCount);
+    }
+
+    @Test
+    public void advance_growsGridAndReset_restoresInitialState() {
+        GameEngine engine = new GameEngine(new StageGenerator(new Random(1)));
+        engine.advance();
+        engine.advance();
+        assertEquals(3, engine.getCurrentStage());
+        assertEquals(GameEngine.INITIAL_GRID_SIZE + 2, engine.getGridSize());
+
+        engine.reset();
+        assertEquals(1, engine.getCurrentStage());
+        assertEquals(GameEngine.INITIAL_GRID_SIZE, engine.getGridSize());
+    }
+
+    @Test
+    public void buildStage_shrinksGridThatDoesNotFit() {
+        GameEngine engine = new GameEngine(new StageGenerator(new Random(7)));
+        for (int i = 0; i < 20; i++) {
+            engine.advance();
+        }
+        // 100px 보드에는 8px 간격으로 격자 10칸 (10 * 1 + 8 * 11 = 98) 까지만 들어간다
+        assertTrue(engine.buildStage(100, 100, SPACING));
+        assertEquals(10, engine.getStage().getGridSize());
+        assertTrue(engine.getStage().getTileSize() > 0);
+    }
+
+    @Test
+    public void gridFit_matchesLargestGridWithPositiveTileSize() {
+        int[][] boards = {{100, 100}, {1320, 1238}, {480, 450}, {9, 9}, {30, 500}};
+        for (int[] board : boards) {
+            int expected = 0;
+            for (int n = 1; n < 1000; n++) {
+                if (BoardLayout.tileSize(board[0], board[1], n, SPACING) > 0) {
+                    expected = n;
+                }
+            }
+            GridFitSolver.Fit fit = new GridFitSolver().fit(board[0], board[1], 1f, SPACING);
+            assertEquals(expected, fit.getMaxGridSize());
+            if (expected > 0) {
+                assertEquals(BoardLayout.tileSize(board[0], board[1], expected, SPACING), fit.tileSize(expected));
+            }
+        }
+    }
+
+    @Test
+    public void gridFit_isCachedPerBoard() {
+        GridFitSolver solver = new GridFitSolver();
+        assertSame(solver.fit(1320, 1238, 2.75f, SPACING), solver.fit(1320, 1238, 2.75f, SPACING));
+        assertNotSame(solver.fit(1320, 1238, 2.75f, SPACING), solver.fit(1320, 1238, 3f, SPACING));
+    }
+
+    @Test
+    public void restore_rebuildsSameBoardWithoutRandomness() {
+        GameEngine original = new GameEngine(new StageGenerator(new Random(11)), new GridFitSolver());
+        original.advance();
+        original.advance();
+        assertTrue(original.buildStage(1000, 900, SPACING));
+        Stage saved = original.getStage();
+
+        GameEngine restored = new GameEngine(new StageGenerator(new Random(99)), new GridFitSolver());
+        restored.restore(saved.getStageNumber(), saved.getGridSize(), saved.getOddIndex(), saved.getBaseColor());
+        assertTrue(restored.buildStage(1000, 900, SPACING));
+
+        Stage stage = restored.getStage();
+        assertEquals(3, restored.getCurrentStage());
+        assertEquals(saved.getGridSize(), stage.getGridSize());
+        assertEquals(saved.getOddIndex(), stage.getOddIndex());
+        for (int i = 0; i < stage.getTotalTiles(); i++) {
+            assertEquals(saved.getColors()[i], stage.getColors()[i]);
+        }
+    }
+}
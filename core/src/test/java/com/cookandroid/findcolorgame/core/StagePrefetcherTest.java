@@ -0,0 +1,75 @@
+package com.cookandroid.findcolorgame.core;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class StagePrefetcherTest {
+
+    private static final int SPACING = 8;
+
+    /** generate 호출 횟수를 센다. */
+    private static class CountingGenerator extends StageGenerator {
+        int calls;
+
+        CountingGenerator() {
+            super(new Random(5));
+        }
+
+        @Override
+        public boolean generate(int stageNumber, int gridSize, int tileSize, int boardWidth, int boardHeight,
+                                int spacing, Stage into) {
+            calls++;
+            return super.generate(stageNumber, gridSize, tileSize, boardWidth, boardHeight, spacing, into);
+        }
+    }
+
+    @Test
+    public void correctTap_usesPrefetchedBoard() {
+        CountingGenerator generator = new CountingGenerator();
+        Queue<Runnable> background = new ArrayDeque<>();
+        GameEngine engine = new GameEngine(generator, new GridFitSolver(), background::add);
+
+        assertTrue(engine.buildStage(1000, 900, SPACING));
+        assertEquals(1, generator.calls); // 1 스테이지는 바로 만든다
+        assertEquals(1, background.size()); // 2 스테이지는 백그라운드 대기
+
+        background.poll().run();
+        assertEquals(2, generator.calls);
+
+        engine.advance();
+        assertTrue(engine.buildStage(1000, 900, SPACING));
+        assertEquals(2, generator.calls); // 미리 만든 보드를 그대로 사용
+        assertEquals(2, engine.getStage().getStageNumber());
+        assertEquals(GameEngine.INITIAL_GRID_SIZE + 1, engine.getStage().getGridSize());
+    }
+
+    @Test
+    public void restart_discardsPrefetchedBoard() {
+        CountingGenerator generator = new CountingGenerator();
+        GameEngine engine = new GameEngine(generator, new GridFitSolver(), Runnable::run);
+
+        assertTrue(engine.buildStage(1000, 900, SPACING));
+        engine.reset();
+        assertTrue(engine.buildStage(1000, 900, SPACING));
+        assertEquals(1, engine.getStage().getStageNumber());
+        assertEquals(GameEngine.INITIAL_GRID_SIZE, engine.getStage().getGridSize());
+    }
+
+    @Test
+    public void takenBoard_isNotOverwrittenByNextPrefetch() {
+        StagePrefetcher prefetcher = new StagePrefetcher(new StageGenerator(new Random(9)), Runnable::run);
+        int tileSize = BoardLayout.tileSize(1000, 900, 4, SPACING);
+        Stage first = prefetcher.take(1, 4, tileSize, 1000, 900, SPACING);
+        int firstBase = first.getBaseColor();
+
+        prefetcher.prefetch(2, 4, tileSize, 1000, 900, SPACING);
+        assertEquals(1, first.getStageNumber());
+        assertEquals(firstBase, first.getBaseColor());
+        assertNotSame(first, prefetcher.take(2, 4, tileSize, 1000, 900, SPACING));
+    }
+}
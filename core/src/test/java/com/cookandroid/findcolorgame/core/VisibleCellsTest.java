@@ -0,0 +1,60 @@
+package com.cookandroid.findcolorgame.core;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class VisibleCellsTest {
+
+    private static final int SPACING = 8;
+
+    @Test
+    public void count_matchesOverflowScan() {
+        VisibleCells visibleCells = new VisibleCells();
+        int[][] boards = {{1320, 1238}, {400, 300}, {300, 400}, {97, 160}};
+        for (int[] board : boards) {
+            for (int gridSize = 1; gridSize <= 64; gridSize++) {
+                // 정사각형 타일 크기는 짧은 축 기준이라 긴 축에서는 넘치지 않는다. 더 큰 타일도 같이 검사한다.
+                int fitted = BoardLayout.tileSize(board[0], board[1], gridSize, SPACING);
+                for (int tileSize : new int[]{fitted, fitted * 2, fitted * 3}) {
+                    if (tileSize <= 0) {
+                        continue;
+                    }
+                    int expected = 0;
+                    for (int i = 0; i < gridSize * gridSize; i++) {
+                        if (!BoardLayout.isTileOverflowing(i, gridSize, tileSize, SPACING, board[0], board[1])) {
+                            expected++;
+                        }
+                    }
+                    visibleCells.update(gridSize, tileSize, SPACING, board[0], board[1]);
+                    assertEquals(expected, visibleCells.count());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void sample_neverPicksOverflowingTile() {
+        VisibleCells visibleCells = new VisibleCells();
+        int gridSize = 10;
+        int tileSize = 40;
+        visibleCells.update(gridSize, tileSize, SPACING, 300, 200);
+        assertEquals(6 * 4, visibleCells.count());
+
+        Random random = new Random(3);
+        for (int i = 0; i < 1000; i++) {
+            int index = visibleCells.sample(random);
+            assertFalse(BoardLayout.isTileOverflowing(index, gridSize, tileSize, SPACING, 300, 200));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void sample_failsWhenNothingIsVisible() {
+        VisibleCells visibleCells = new VisibleCells();
+        visibleCells.update(4, 50, SPACING, 40, 40);
+        assertEquals(0, visibleCells.count());
+        visibleCells.sample(new Random());
+    }
+}
@@ -0,0 +1,32 @@
+package com.cookandroid.findcolorgame.core.ranking;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 테스트용 메모리 서버. failNext 가 켜져 있으면 한 번 실패한다.
+ */
+class FakeScoreBackend implements ScoreBackend {
+
+    final Map<String, Integer> scores = new HashMap<>();
+    final List<List<PendingScore>> batches = new ArrayList<>();
+    int failuresLeft;
+
+    @Override
+    public synchronized void writeBatch(List<PendingScore> batch) throws IOException {
+        if (failuresLeft > 0) {
+            failuresLeft--;
+            throw new IOException("offline");
+        }
+        batches.add(new ArrayList<>(batch));
+        for (PendingScore score : batch) {
+            Integer current = scores.get(score.getUid());
+            if (current == null || score.getScore() > current) {
+                scores.put(score.getUid(), score.getScore());
+            }
+        }
+    }
+}
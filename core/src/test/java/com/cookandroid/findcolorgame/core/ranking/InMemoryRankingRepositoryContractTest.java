@@ -0,0 +1,9 @@
+package com.cookandroid.findcolorgame.core.ranking;
+
+public class InMemoryRankingRepositoryContractTest extends AllTimeRankingRepositoryContract {
+
+    @Override
+    protected AllTimeRankingRepository newRepository() {
+        return new InMemoryRankingRepository();
+    }
+}
@@ -0,0 +1,161 @@
+package com.cookandroid.findcolorgame.core.ranking;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class InMemoryRankingRepositoryTest {
+
+    @Test
+    public void submit_neverLowersScore() throws Exception {
+        InMemoryRankingRepository repository = new InMemoryRankingRepository();
+        repository.submit("alice", "Alice", 8).get();
+        repository.submit("alice", "Alice", 3).get();
+
+        List<RankEntry> top = repository.topN(10).get();
+        assertEquals(1, top.size());
+        assertEquals(8, top.get(0).getScore());
+    }
+
+    @Test
+    public void topNAndRankOf_followScoreOrder() throws Exception {
+        InMemoryRankingRepository repository = new InMemoryRankingRepository();
+        repository.submit("alice", "Alice", 5).get();
+        repository.submit("bob", "Bob", 9).get();
+        repository.submit("carol", "Carol", 7).get();
+
+        List<RankEntry> top = repository.topN(2).get();
+        assertEquals("bob", top.get(0).getUid());
+        assertEquals("carol", top.get(1).getUid());
+        assertEquals(Integer.valueOf(3), repository.rankOf("alice").get());
+        assertEquals(Integer.valueOf(0), repository.rankOf("nobody").get());
+
+        repository.submit("alice", "Alice", 8).get();
+        ScoreHistogram histogram = repository.histogram().get();
+        assertEquals(3, histogram.total());
+        assertEquals(2, histogram.rankOf(8));
+    }
+
+    @Test
+    public void pageAfter_continuesFromCursorWithoutOverlap() throws Exception {
+        InMemoryRankingRepository repository = new InMemoryRankingRepository();
+        repository.submit("alice", "Alice", 5).get();
+        repository.submit("bob", "Bob", 9).get();
+        repository.submit("carol", "Carol", 5).get();
+        repository.submit("dave", "Dave", 3).get();
+
+        List<RankEntry> first = repository.pageAfter(null, 2).get();
+        assertEquals("bob", first.get(0).getUid());
+        assertEquals("alice", first.get(1).getUid());
+
+        List<RankEntry> second = repository.pageAfter(first.get(1), 2).get();
+        assertEquals(2, second.size());
+        assertEquals("carol", second.get(0).getUid()); // 같은 점수는 uid 순서로 이어진다
+        assertEquals("dave", second.get(1).getUid());
+
+        assertTrue(repository.pageAfter(second.get(1), 2).get().isEmpty());
+    }
+
+    @Test
+    public void observe_deliversCurrentAndChangedTop() throws Exception {
+        InMemoryRankingRepository repository = new InMemoryRankingRepository();
+        repository.submit("alice", "Alice", 5).get();
+
+        List<List<RankEntry>> updates = new ArrayList<>();
+        RankingRepository.Registration registration = repository.observe(10, new RankingRepository.Listener() {
+            @Override
+            public void onChanged(List<RankEntry> top) {
+                updates.add(top);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                fail(e.toString());
+            }
+        });
+        repository.submit("bob", "Bob", 6).get();
+        registration.remove();
+        repository.submit("carol", "Carol", 7).get();
+
+        assertEquals(2, updates.size());
+        assertEquals("bob", updates.get(1).get(0).getUid());
+    }
+
+    @Test
+    public void observeChanges_sendsOnlyDeltas() throws Exception {
+        InMemoryRankingRepository repository = new InMemoryRankingRepository();
+        repository.submit("alice", "Alice", 5).get();
+        repository.submit("bob", "Bob", 4).get();
+
+        List<List<RankChange>> batches = new ArrayList<>();
+        repository.observeChanges(2, new RankingRepository.ChangeListener() {
+            @Override
+            public void onChanges(List<RankChange> changes) {
+                batches.add(changes);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                fail(e.toString());
+            }
+        });
+        repository.submit("carol", "Carol", 9).get(); // bob 이 상위 2 명에서 밀려난다
+
+        assertEquals(2, batches.size());
+        assertEquals(2, batches.get(0).size());
+        assertEquals("[upsert Carol : 9, remove bob]", batches.get(1).toString());
+    }
+
+    @Test
+    public void neighborhood_alwaysReturnsFullWindow() throws Exception {
+        InMemoryRankingRepository repository = new InMemoryRankingRepository();
+        for (int i = 0; i < 30; i++) {
+            repository.submit(String.format("u%02d", i), "P" + i, 100 - i).get(); // u00 이 1 위
+        }
+
+        Neighborhood middle = Neighborhood.load(repository, "u15", 10).get();
+        assertEquals(21, middle.getRows().size());
+        assertEquals(10, middle.getOwnIndex());
+        assertEquals("u05", middle.getRows().get(0).getUid());
+        assertEquals("u25", middle.getRows().get(20).getUid());
+
+        Neighborhood top = Neighborhood.load(repository, "u02", 10).get();
+        assertEquals(21, top.getRows().size());
+        assertEquals(2, top.getOwnIndex());
+        assertEquals("u00", top.getRows().get(0).getUid());
+
+        Neighborhood bottom = Neighborhood.load(repository, "u28", 10).get();
+        assertEquals(21, bottom.getRows().size());
+        assertEquals(19, bottom.getOwnIndex());
+        assertEquals("u29", bottom.getRows().get(20).getUid());
+
+        assertTrue(Neighborhood.load(repository, "nobody", 10).get().getRows().isEmpty());
+    }
+
+    @Test
+    public void neighborhood_givesTiedScoresTheSameRank() throws Exception {
+        InMemoryRankingRepository repository = new InMemoryRankingRepository();
+        repository.submit("top", "Top", 20).get();
+        // 7 명이 같은 점수. uid 순으로 놓이지만 순위는 모두 2 위다
+        for (int i = 0; i < 7; i++) {
+            repository.submit("tie" + i, "T" + i, 10).get();
+        }
+        repository.submit("low", "Low", 5).get();
+
+        Neighborhood around = Neighborhood.load(repository, "tie6", 3).get();
+        assertEquals(Integer.valueOf(2), repository.rankOf("tie6").get());
+        int[] ranks = around.competitionRanks(repository.histogram().get());
+        assertEquals(7, ranks.length);
+        assertEquals("tie6", around.getRows().get(around.getOwnIndex()).getUid());
+        assertEquals(2, ranks[around.getOwnIndex()]);
+        for (int i = 0; i < ranks.length; i++) {
+            RankEntry row = around.getRows().get(i);
+            int expected = row.getScore() == 20 ? 1 : row.getScore() == 10 ? 2 : 9;
+            assertEquals(row.getUid(), expected, ranks[i]);
+        }
+        assertEquals("low", around.getRows().get(ranks.length - 1).getUid());
+    }
+}
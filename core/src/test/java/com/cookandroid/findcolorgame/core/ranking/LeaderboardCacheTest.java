@@ -0,0 +1,30 @@
+package com.cookandroid.findcolorgame.core.ranking;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class LeaderboardCacheTest {
+
+    @Test
+    public void snapshot_isReadBackFromDiskWithTtl() throws IOException {
+        File dir = Files.createTempDirectory("leaderboard").toFile();
+        List<RankEntry> entries = Arrays.asList(new RankEntry("bob", "Bob", 9), new RankEntry("alice", null, 5));
+
+        new LeaderboardCache(dir, 4, 1000, Runnable::run).put("top", entries, 10_000);
+
+        LeaderboardCache coldCache = new LeaderboardCache(dir, 4, 1000, Runnable::run);
+        LeaderboardCache.Snapshot snapshot = coldCache.get("top");
+        assertNotNull(snapshot);
+        assertEquals(entries, snapshot.getEntries());
+        assertFalse(coldCache.isStale(snapshot, 10_500));
+        assertTrue(coldCache.isStale(snapshot, 11_000));
+        assertNull(coldCache.get("weekly-2026-W42"));
+    }
+}
@@ -0,0 +1,56 @@
+package com.cookandroid.findcolorgame.core.ranking;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Map;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+public class LeaderboardWindowTest {
+
+    private static long kst(int year, int month, int day, int hour) {
+        Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone(RankingSchema.WINDOW_TIME_ZONE));
+        calendar.clear();
+        calendar.set(year, month - 1, day, hour, 0);
+        return calendar.getTimeInMillis();
+    }
+
+    @Test
+    public void bucketKeys_useLocalDayAndIsoWeek() {
+        assertEquals("2026-10-18", LeaderboardWindow.DAILY.bucketKey(kst(2026, 10, 18, 23)));
+        assertEquals("2026-10-19", LeaderboardWindow.DAILY.bucketKey(kst(2026, 10, 19, 0)));
+        assertEquals("2026-W42", LeaderboardWindow.WEEKLY.bucketKey(kst(2026, 10, 18, 12))); // 일요일
+        assertEquals("2026-W43", LeaderboardWindow.WEEKLY.bucketKey(kst(2026, 10, 19, 12))); // 월요일
+        assertEquals("2026-W53", LeaderboardWindow.WEEKLY.bucketKey(kst(2027, 1, 1, 12)));
+        assertNull(LeaderboardWindow.ALL_TIME.bucketKey(0));
+        assertEquals("leaderboards/2026-W42/rankings", LeaderboardWindow.WEEKLY.collectionPath(kst(2026, 10, 18, 12)));
+    }
+
+    @Test
+    public void isExpired_keepsRecentBucketsOnly() {
+        long now = kst(2026, 10, 18, 12);
+        assertFalse(LeaderboardWindow.DAILY.isExpired("2026-10-12", now));
+        assertTrue(LeaderboardWindow.DAILY.isExpired("2026-10-11", now));
+        assertFalse(LeaderboardWindow.WEEKLY.isExpired("2026-W35", now));
+        assertTrue(LeaderboardWindow.WEEKLY.isExpired("2026-W34", now));
+        assertFalse(LeaderboardWindow.WEEKLY.isExpired("2026-10-01", now)); // 다른 기간의 칸
+        assertNull(LeaderboardWindow.ofBucketKey("rankings"));
+    }
+
+    @Test
+    public void bestByDocumentPath_writesEveryWindowOnceWithMax() {
+        long monday = kst(2026, 10, 19, 9);
+        Map<String, PendingScore> best = LeaderboardWindow.bestByDocumentPath(Arrays.asList(
+                new PendingScore("g1", "alice", "Alice", 9, kst(2026, 10, 18, 9)),
+                new PendingScore("g2", "alice", "Alice", 4, monday)));
+
+        assertEquals(5, best.size());
+        assertEquals(9, best.get("rankings/alice").getScore());
+        assertEquals(4, best.get("leaderboards/2026-10-19/rankings/alice").getScore());
+        assertEquals(4, best.get("leaderboards/2026-W43/rankings/alice").getScore());
+        assertEquals(9, best.get("leaderboards/2026-W42/rankings/alice").getScore());
+    }
+}
@@ -0,0 +1,95 @@
+package com.cookandroid.findcolorgame.core.ranking;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class RankIndexTest {
+
+    /** 알림을 그대로 받아 적고, 받은 알림만으로 목록을 따라 만든다. */
+    private static final class RecordingListener implements RankIndex.Listener {
+        final List<String> events = new ArrayList<>();
+        final List<String> mirror = new ArrayList<>();
+        private final RankIndex index;
+
+        RecordingListener(RankIndex index) {
+            this.index = index;
+        }
+
+        @Override
+        public void onInserted(int position) {
+            events.add("insert " + position);
+            mirror.add(position, index.get(position).getUid());
+        }
+
+        @Override
+        public void onRemoved(int position) {
+            events.add("remove " + position);
+            mirror.remove(position);
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            events.add("move " + fromPosition + "->" + toPosition);
+            mirror.add(toPosition, mirror.remove(fromPosition));
+        }
+
+        @Override
+        public void onChanged(int position) {
+            events.add("change " + position);
+        }
+    }
+
+    @Test
+    public void apply_reportsTargetedRowEvents() {
+        RankIndex index = new RankIndex();
+        RecordingListener listener = new RecordingListener(index);
+
+        index.apply(Arrays.asList(RankChange.upsert(new RankEntry("a", "A", 9)),
+                RankChange.upsert(new RankEntry("b", "B", 7)),
+                RankChange.upsert(new RankEntry("c", "C", 5))), listener);
+        assertEquals(Arrays.asList("insert 0", "insert 1", "insert 2"), listener.events);
+
+        listener.events.clear();
+        index.apply(Arrays.asList(RankChange.upsert(new RankEntry("c", "C", 10)),
+                RankChange.upsert(new RankEntry("a", "Ann", 9)),
+                RankChange.remove("b")), listener);
+        assertEquals(Arrays.asList("move 2->0", "change 0", "change 1", "remove 2"), listener.events);
+        assertEquals(Arrays.asList("c", "a"), listener.mirror);
+        assertEquals(1, index.positionOf("a"));
+        assertEquals(-1, index.positionOf("b"));
+    }
+
+    @Test
+    public void randomChanges_matchSortedList() {
+        RankIndex index = new RankIndex();
+        RecordingListener listener = new RecordingListener(index);
+        List<RankEntry> expected = new ArrayList<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 2000; i++) {
+            String uid = "u" + random.nextInt(200);
+            expected.removeIf(entry -> entry.getUid().equals(uid));
+            if (random.nextInt(5) == 0) {
+                index.remove(uid, listener);
+            } else {
+                RankEntry entry = new RankEntry(uid, uid, random.nextInt(50));
+                expected.add(entry);
+                index.upsert(entry, listener);
+            }
+        }
+
+        Collections.sort(expected, (a, b) -> RankEntry.compare(a.getScore(), a.getUid(), b.getScore(), b.getUid()));
+        assertEquals(expected.size(), index.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i), index.get(i));
+            assertEquals(expected.get(i).getUid(), listener.mirror.get(i));
+        }
+    }
+}
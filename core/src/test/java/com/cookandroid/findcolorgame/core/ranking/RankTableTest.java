@@ -0,0 +1,94 @@
+package com.cookandroid.findcolorgame.core.ranking;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RankTableTest {
+
+    @Test
+    public void of_sortsByScoreThenUid() {
+        RankTable table = RankTable.of(Arrays.asList(
+                new RankEntry("carol", "Carol", 5), new RankEntry("bob", "Bob", 9), new RankEntry("alice", null, 5)));
+
+        assertEquals(3, table.size());
+        assertEquals("bob", table.uidAt(0));
+        assertEquals("alice", table.uidAt(1));
+        assertNull(table.nameAt(1));
+        assertEquals("carol", table.uidAt(2));
+        assertEquals(5L, table.scoreAt(2));
+        assertEquals(new RankEntry("carol", "Carol", 5), table.entryAt(2));
+    }
+
+    @Test
+    public void append_keepsOriginalAndReorders() {
+        RankTable first = RankTable.of(Arrays.asList(new RankEntry("a", "A", 9), new RankEntry("b", "B", 7)));
+        RankTable both = first.append(Arrays.asList(new RankEntry("c", "C", 8), new RankEntry("d", "D", 1)));
+
+        assertEquals(2, first.size());
+        assertEquals(4, both.size());
+        assertEquals("a", both.uidAt(0));
+        assertEquals("c", both.uidAt(1));
+        assertEquals("b", both.uidAt(2));
+        assertEquals("d", both.uidAt(3));
+        assertEquals(0, RankTable.EMPTY.size());
+    }
+
+    @Test
+    public void append_dropsRowsAlreadyHeld() {
+        RankTable first = RankTable.of(Arrays.asList(new RankEntry("a", "A", 9), new RankEntry("b", "B", 5)));
+        // 같은 점수 b 가 다음 페이지에 다시 온다
+        RankTable both = first.append(Arrays.asList(new RankEntry("b", "B", 5), new RankEntry("c", "C", 5)));
+
+        assertEquals(3, both.size());
+        assertEquals("a", both.uidAt(0));
+        assertEquals("b", both.uidAt(1));
+        assertEquals("c", both.uidAt(2));
+    }
+
+    @Test
+    public void append_onOlderTableDoesNotDisturbNewerOne() {
+        RankTable first = RankTable.of(Arrays.asList(new RankEntry("a", "A", 9), new RankEntry("b", "B", 7)));
+        RankTable next = first.append(Arrays.asList(new RankEntry("c", "C", 5)));
+        // 이전 표에 다시 붙이면 열 배열을 복사해서 next 의 줄은 그대로다
+        RankTable other = first.append(Arrays.asList(new RankEntry("z", "Z", 8), new RankEntry("c", "C2", 1)));
+
+        assertEquals(3, next.size());
+        assertEquals("a", next.uidAt(0));
+        assertEquals("b", next.uidAt(1));
+        assertEquals("c", next.uidAt(2));
+        assertEquals("C", next.nameAt(2));
+
+        assertEquals(4, other.size());
+        assertEquals("a", other.uidAt(0));
+        assertEquals("z", other.uidAt(1));
+        assertEquals("b", other.uidAt(2));
+        assertEquals("C2", other.nameAt(3));
+        assertEquals(2, first.size());
+    }
+
+    @Test
+    public void append_manyPages_keepsOrder() {
+        RankTable table = RankTable.EMPTY;
+        for (int page = 0; page < 50; page++) {
+            List<RankEntry> rows = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                rows.add(new RankEntry("u" + page + "_" + i, null, 10_000 - page * 10 - i));
+            }
+            table = table.append(rows);
+        }
+        // 앞쪽에 끼어드는 페이지
+        table = table.append(Arrays.asList(new RankEntry("top", null, 20_000), new RankEntry("mid", null, 9_995)));
+
+        assertEquals(502, table.size());
+        assertEquals("top", table.uidAt(0));
+        for (int i = 1; i < table.size(); i++) {
+            assertTrue(table.scoreAt(i - 1) >= table.scoreAt(i));
+        }
+        assertEquals("mid", table.uidAt(6));
+    }
+}
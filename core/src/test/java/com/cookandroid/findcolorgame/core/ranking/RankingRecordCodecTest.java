@@ -0,0 +1,81 @@
+package com.cookandroid.findcolorgame.core.ranking;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class RankingRecordCodecTest {
+
+    // Firebase uid 길이 (28 자)
+    private static final String UID = "Xk3fQ9pLmN2rT7vW1yZ4bC6dE8gH";
+
+    private static Map<String, Object> legacyRow(String uid, String name, long score) {
+        Map<String, Object> row = new HashMap<>();
+        row.put(RankingSchema.FIELD_KEY, uid);
+        row.put(RankingSchema.FIELD_NAME, name);
+        row.put(RankingSchema.FIELD_SCORE, score);
+        return row;
+    }
+
+    @Test
+    public void record_readsBothVersions() {
+        Map<String, Object> current = RankingRecordCodec.encodeRecord(12);
+        assertTrue(RankingRecordCodec.isCurrent(current));
+        assertEquals(Integer.valueOf(12), RankingRecordCodec.scoreOf(current));
+        assertNull(RankingRecordCodec.legacyNameOf(current));
+
+        Map<String, Object> legacy = legacyRow("alice", "Alice", 7L);
+        assertFalse(RankingRecordCodec.isCurrent(legacy));
+        assertEquals(Integer.valueOf(7), RankingRecordCodec.scoreOf(legacy));
+        assertEquals("Alice", RankingRecordCodec.legacyNameOf(legacy));
+
+        assertNull(RankingRecordCodec.scoreOf(null));
+        assertEquals("Alice", RankingRecordCodec.profileNameOf(RankingRecordCodec.encodeProfile("Alice")));
+    }
+
+    @Test
+    public void legacyEntries_useMapKeyAsUidAndSkipBrokenRows() {
+        Map<String, Object> entries = new HashMap<>();
+        entries.put("alice", legacyRow("alice", "Alice", 7L));
+        entries.put("bob", legacyRow("bob", null, 9L));
+        entries.put("broken", "garbage");
+        entries.put("noScore", new HashMap<String, Object>());
+
+        List<RankEntry> decoded = new ArrayList<>(RankingRecordCodec.decodeLegacyEntries(entries));
+        decoded.sort(Comparator.comparing(RankEntry::getUid));
+        assertEquals(2, decoded.size());
+        assertEquals(new RankEntry("alice", "Alice", 7), decoded.get(0));
+        assertEquals(new RankEntry("bob", null, 9), decoded.get(1));
+        assertTrue(RankingRecordCodec.decodeLegacyEntries(null).isEmpty());
+    }
+
+    @Test
+    public void compactRow_isLessThanHalfOfLegacyEntriesRow() {
+        // 1 판: entries 맵의 한 줄 = uid 키 + {key, name, score}
+        long legacy = DocumentSizes.valueSize(
+                Collections.singletonMap(UID, legacyRow(UID, "Player 123", 42L)));
+        // 2 판 기록: 문서 ID 가 uid 이므로 필드는 {v, s} 뿐
+        long record = DocumentSizes.valueSize(RankingRecordCodec.encodeRecord(42));
+        assertTrue("record " + record + " vs legacy " + legacy, record * 2 <= legacy);
+
+        // 상위 목록 문서의 한 줄: 배열 세 개에 값만
+        long topRow = DocumentSizes.valueSize(
+                TopSnapshotCodec.encode(Collections.singletonList(new RankEntry(UID, "Player 123", 42))))
+                - DocumentSizes.valueSize(TopSnapshotCodec.encode(Collections.<RankEntry>emptyList()));
+        long legacyTopRow = DocumentSizes.valueSize(legacyRow(UID, "Player 123", 42L));
+        assertTrue("top row " + topRow + " vs legacy " + legacyTopRow, topRow < legacyTopRow);
+    }
+
+    @Test
+    public void documentSize_followsFirestoreRules() {
+        // "rankings"(9) + "u1"(3) + 16 = 28, "score"(6) + 8 = 14, + 32
+        assertEquals(74, DocumentSizes.documentSize("rankings/u1", Collections.singletonMap("score", 3L)));
+    }
+}
@@ -0,0 +1,43 @@
+package com.cookandroid.findcolorgame.core.ranking;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class ScoreHistogramTest {
+
+    @Test
+    public void rankAndPercent_comeFromBucketCounts() {
+        Map<String, Long> buckets = new HashMap<>();
+        buckets.put("3", 5L);
+        buckets.put("7", 3L);
+        buckets.put("12", 2L);
+        buckets.put("20", 0L);
+        ScoreHistogram histogram = ScoreHistogram.fromBuckets(buckets);
+
+        assertEquals(10, histogram.total());
+        assertEquals(1, histogram.rankOf(12));
+        assertEquals(3, histogram.rankOf(7));
+        assertEquals(6, histogram.rankOf(3));
+        assertEquals(3, histogram.rankOf(8));
+        assertEquals(30.0, histogram.topPercent(7), 1e-9);
+        assertEquals(100.0, ScoreHistogram.EMPTY.topPercent(4), 1e-9);
+        assertEquals(3, histogram.countOf(7));
+        assertEquals(0, histogram.countOf(20)); // 0 인 칸은 버렸다
+        assertEquals(0, histogram.countOf(8));
+    }
+
+    @Test
+    public void addChange_movesOneUserBetweenBuckets() {
+        Map<String, Long> deltas = new HashMap<>();
+        ScoreHistogram.addChange(deltas, null, 5);
+        ScoreHistogram.addChange(deltas, 5, 9);
+        ScoreHistogram.addChange(deltas, 9, 9);
+
+        assertEquals(Long.valueOf(0), deltas.get("5"));
+        assertEquals(Long.valueOf(1), deltas.get("9"));
+    }
+}
@@ -0,0 +1,158 @@
+package com.cookandroid.findcolorgame.core.ranking;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class ScorePipelineTest {
+
+    private final ScheduledExecutorService executor = Executors.newScheduledThreadPool(2);
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 받은 점수를 기록하는 곳. failuresLeft 번 실패한 뒤 성공하고, gate 가 있으면 열릴 때까지 막힌다.
+     */
+    private static class RecordingSink implements ScorePipeline.Sink {
+
+        final String name;
+        final List<String> received = new CopyOnWriteArrayList<>();
+        volatile int failuresLeft;
+        volatile CountDownLatch gate;
+
+        RecordingSink(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public void send(PendingScore score) throws Exception {
+            if (gate != null) {
+                gate.await();
+            }
+            if (failuresLeft > 0) {
+                failuresLeft--;
+                throw new IOException("offline");
+            }
+            received.add(score.getGameId());
+        }
+    }
+
+    private static void awaitSize(List<?> list, int size) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (list.size() < size && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(size, list.size());
+    }
+
+    @Test
+    public void submit_sameGameIdIsSentOnce() throws Exception {
+        RecordingSink sink = new RecordingSink("ranking");
+        ScorePipeline pipeline = new ScorePipeline(Collections.singletonList(sink), executor,
+                new Backoff(1, 5, new Random(1)), 3);
+
+        assertTrue(pipeline.submit(new PendingScore("g1", "alice", "Alice", 7, 1)));
+        assertFalse(pipeline.submit(new PendingScore("g1", "alice", "Alice", 7, 1)));
+        assertTrue(pipeline.submit(new PendingScore("g2", "alice", "Alice", 8, 2)));
+
+        awaitSize(sink.received, 2);
+        assertTrue(sink.received.containsAll(Arrays.asList("g1", "g2")));
+        assertEquals(2, pipeline.getStats().get("ranking").getSuccesses());
+    }
+
+    @Test
+    public void submit_remembersGameIdsAcrossRestart() throws Exception {
+        File file = File.createTempFile("game_ids", ".txt");
+        assertTrue(file.delete()); // 처음 실행에는 파일이 없다
+        try {
+            RecordingSink sink = new RecordingSink("ranking");
+            ScorePipeline first = new ScorePipeline(Collections.singletonList(sink), executor,
+                    new Backoff(1, 5, new Random(1)), 3, new RecentGameIds(file, 2));
+            assertTrue(first.submit(new PendingScore("g1", "alice", "Alice", 7, 1)));
+            awaitSize(sink.received, 1);
+            long deadline = System.currentTimeMillis() + 5000;
+            while (!file.exists() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+
+            // 프로세스가 다시 떠서 되살린 게임이 같은 gameId 로 끝난다
+            ScorePipeline second = new ScorePipeline(Collections.singletonList(sink), executor,
+                    new Backoff(1, 5, new Random(1)), 3, new RecentGameIds(file, 2));
+            assertFalse(second.submit(new PendingScore("g1", "alice", "Alice", 7, 1)));
+            assertTrue(second.submit(new PendingScore("g2", "alice", "Alice", 8, 2)));
+            assertTrue(second.submit(new PendingScore("g3", "alice", "Alice", 9, 3)));
+            // 가장 오래된 g1 은 잊었다
+            assertTrue(second.submit(new PendingScore("g1", "alice", "Alice", 7, 1)));
+        } finally {
+            file.delete();
+            new File(file.getPath() + ".tmp").delete();
+        }
+    }
+
+    @Test
+    public void sinks_retryIndependentlyAndDoNotWaitForEachOther() throws Exception {
+        RecordingSink slow = new RecordingSink("games");
+        slow.gate = new CountDownLatch(1);
+        RecordingSink flaky = new RecordingSink("ranking");
+        flaky.failuresLeft = 2;
+        ScorePipeline pipeline = new ScorePipeline(Arrays.asList(slow, flaky), executor,
+                new Backoff(1, 5, new Random(2)), 5);
+
+        pipeline.submit(new PendingScore("g1", "alice", "Alice", 7, 1));
+
+        // 한 곳이 막혀 있어도 다른 곳은 다시 시도해서 끝난다
+        awaitSize(flaky.received, 1);
+        assertTrue(slow.received.isEmpty());
+        ScorePipeline.SinkStats flakyStats = pipeline.getStats().get("ranking");
+        assertEquals(2, flakyStats.getRetries());
+        assertEquals(1, flakyStats.getSuccesses());
+
+        slow.gate.countDown();
+        awaitSize(slow.received, 1);
+        assertEquals(0, pipeline.getStats().get("games").getRetries());
+        assertTrue(pipeline.getStats().get("games").getMaxLatencyNanos() > 0);
+    }
+
+    @Test
+    public void sink_givesUpAfterMaxAttempts() throws Exception {
+        RecordingSink sink = new RecordingSink("games");
+        sink.failuresLeft = 10;
+        CountDownLatch gaveUp = new CountDownLatch(1);
+        ScorePipeline pipeline = new ScorePipeline(Collections.singletonList(sink), executor,
+                new Backoff(1, 5, new Random(3)), 3);
+        pipeline.setListener((sinkName, score, attempt, latencyNanos, error, willRetry) -> {
+            if (error != null && !willRetry) {
+                gaveUp.countDown();
+            }
+        });
+
+        pipeline.submit(new PendingScore("g1", "alice", "Alice", 7, 1));
+
+        assertTrue(gaveUp.await(5, TimeUnit.SECONDS));
+        ScorePipeline.SinkStats stats = pipeline.getStats().get("games");
+        assertEquals(2, stats.getRetries());
+        assertEquals(1, stats.getFailures());
+        assertEquals(7, sink.failuresLeft);
+    }
+}
@@ -0,0 +1,175 @@
+package com.cookandroid.findcolorgame.core.ranking;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.junit.Assert.*;
+
+public class ScoreQueueTest {
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("score_queue", ".bin");
+        assertTrue(file.delete());
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+        new File(file.getPath() + ".tmp").delete();
+    }
+
+    @Test
+    public void pendingScores_coalesceToMaxPerUser() throws IOException {
+        ScoreQueue queue = new ScoreQueue(file);
+        queue.enqueue(new PendingScore("g1", "alice", "Alice", 5, 1));
+        queue.enqueue(new PendingScore("g2", "alice", "Alice", 9, 2));
+        queue.enqueue(new PendingScore("g3", "alice", "Alice", 7, 3));
+        queue.enqueue(new PendingScore("g4", "bob", "Bob", 3, 4));
+
+        List<PendingScore> pending = queue.pending();
+        assertEquals(2, pending.size());
+        assertEquals(9, pending.get(0).getScore());
+        assertEquals(3, pending.get(1).getScore());
+    }
+
+    @Test
+    public void pendingScores_fromDifferentDaysAreKeptForDailyRanking() throws IOException {
+        long day = 24L * 60 * 60 * 1000;
+        ScoreQueue queue = new ScoreQueue(file);
+        queue.enqueue(new PendingScore("g1", "alice", "Alice", 9, 0));
+        queue.enqueue(new PendingScore("g2", "alice", "Alice", 4, day));
+        queue.enqueue(new PendingScore("g3", "alice", "Alice", 6, day + 1));
+
+        List<PendingScore> pending = queue.pending();
+        assertEquals(2, pending.size());
+        assertEquals(9, pending.get(0).getScore());
+        assertEquals(6, pending.get(1).getScore());
+    }
+
+    @Test
+    public void duplicateGameId_isIgnored() throws IOException {
+        ScoreQueue queue = new ScoreQueue(file);
+        assertTrue(queue.enqueue(new PendingScore("g1", "alice", "Alice", 5, 1)));
+        assertFalse(queue.enqueue(new PendingScore("g1", "alice", "Alice", 5, 1)));
+
+        FakeScoreBackend backend = new FakeScoreBackend();
+        queue.flush(backend);
+        assertFalse(queue.enqueue(new PendingScore("g1", "alice", "Alice", 5, 1))); // 이미 보낸 게임
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void queue_survivesRestartAndTornTail() throws IOException {
+        ScoreQueue queue = new ScoreQueue(file);
+        queue.enqueue(new PendingScore("g1", "alice", null, 4, 1));
+        queue.enqueue(new PendingScore("g2", "bob", "Bob", 6, 2));
+
+        // 마지막 기록을 쓰다가 죽은 것처럼 파일 끝을 자른다
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 3);
+        }
+
+        ScoreQueue reopened = new ScoreQueue(file);
+        List<PendingScore> pending = reopened.pending();
+        assertEquals(1, pending.size());
+        assertEquals("alice", pending.get(0).getUid());
+        assertNull(pending.get(0).getName());
+    }
+
+    @Test
+    public void tornTail_isCutBeforeTheNextAppend() throws IOException {
+        ScoreQueue queue = new ScoreQueue(file);
+        queue.enqueue(new PendingScore("g1", "alice", "Alice", 4, 1));
+        queue.enqueue(new PendingScore("g2", "bob", "Bob", 6, 2));
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 5);
+        }
+
+        ScoreQueue reopened = new ScoreQueue(file);
+        assertTrue(reopened.enqueue(new PendingScore("g3", "carol", "Carol", 8, 3)));
+
+        List<PendingScore> pending = new ScoreQueue(file).pending();
+        assertEquals(2, pending.size());
+        assertEquals("alice", pending.get(0).getUid());
+        assertEquals("carol", pending.get(1).getUid());
+    }
+
+    @Test
+    public void flush_sendsOneBatchAndClearsFile() throws IOException {
+        ScoreQueue queue = new ScoreQueue(file);
+        queue.enqueue(new PendingScore("g1", "alice", "Alice", 5, 1));
+        queue.enqueue(new PendingScore("g2", "bob", "Bob", 8, 2));
+        queue.enqueue(new PendingScore("g3", "alice", "Alice", 6, 3));
+
+        FakeScoreBackend backend = new FakeScoreBackend();
+        assertTrue(queue.flush(backend));
+        assertEquals(1, backend.batches.size());
+        assertEquals(2, backend.batches.get(0).size());
+        assertEquals(Integer.valueOf(6), backend.scores.get("alice"));
+        assertTrue(queue.isEmpty());
+        assertTrue(new ScoreQueue(file).isEmpty());
+    }
+
+    @Test
+    public void failedFlush_keepsScores() throws IOException {
+        ScoreQueue queue = new ScoreQueue(file);
+        queue.enqueue(new PendingScore("g1", "alice", "Alice", 5, 1));
+
+        FakeScoreBackend backend = new FakeScoreBackend();
+        backend.failuresLeft = 1;
+        try {
+            queue.flush(backend);
+            fail("flush should fail while offline");
+        } catch (IOException expected) {
+            // 네트워크 없음
+        }
+        assertEquals(1, new ScoreQueue(file).pending().size());
+
+        assertTrue(queue.flush(backend));
+        assertEquals(Integer.valueOf(5), backend.scores.get("alice"));
+    }
+
+    @Test
+    public void backoff_staysWithinExponentialCeiling() {
+        Backoff backoff = new Backoff(100, 10_000, new Random(1));
+        for (int attempt = 0; attempt < 80; attempt++) {
+            long ceiling = Math.min(10_000, attempt < 40 ? 100L << attempt : Long.MAX_VALUE);
+            long delay = backoff.delayMillis(attempt);
+            assertTrue(delay >= 0 && delay <= ceiling);
+        }
+    }
+
+    @Test
+    public void uploader_retriesWithBackoffUntilOnline() throws Exception {
+        ScoreQueue queue = new ScoreQueue(file);
+        FakeScoreBackend backend = new FakeScoreBackend();
+        backend.failuresLeft = 3;
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        try {
+            ScoreUploader uploader = new ScoreUploader(queue, backend, executor, new Backoff(1, 5, new Random(2)));
+            assertTrue(uploader.submit(new PendingScore("g1", "alice", "Alice", 12, 1)).get());
+
+            long deadline = System.currentTimeMillis() + 5000;
+            while (!queue.isEmpty() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            assertTrue(queue.isEmpty());
+            assertEquals(0, backend.failuresLeft);
+            assertEquals(Integer.valueOf(12), backend.scores.get("alice"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
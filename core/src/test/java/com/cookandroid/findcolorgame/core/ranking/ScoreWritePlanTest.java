@@ -0,0 +1,95 @@
+package com.cookandroid.findcolorgame.core.ranking;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class ScoreWritePlanTest {
+
+    private static final long NOW = 1_790_000_000_000L;
+
+    private static Map<String, Object> legacyRecord(String uid, String name, int score) {
+        Map<String, Object> fields = new HashMap<>();
+        fields.put(RankingSchema.FIELD_KEY, uid);
+        fields.put(RankingSchema.FIELD_NAME, name);
+        fields.put(RankingSchema.FIELD_SCORE, score);
+        return fields;
+    }
+
+    @Test
+    public void forBatch_newUser_writesEveryWindowProfileAndShard() {
+        ScoreWritePlan plan = ScoreWritePlan.forBatch(Arrays.asList(
+                new PendingScore("g1", "alice", "Old", 5, NOW), new PendingScore("g2", "alice", "Alice", 7, NOW + 1)));
+        assertEquals(4, plan.readPaths().size()); // 기간 셋 + 프로필
+
+        plan.resolve(Collections.<String, Map<String, Object>>emptyMap());
+
+        String record = RankingSchema.recordPath("alice");
+        assertEquals(RankingRecordCodec.encodeRecord(7), plan.sets().get(record));
+        assertEquals(RankingRecordCodec.encodeProfile("Alice"), plan.sets().get(RankingSchema.profilePath("alice")));
+        assertEquals(4, plan.sets().size());
+        assertEquals(3, plan.raisedRecords());
+        String shard = RankingSchema.histogramShardPath(RankingSchema.histogramShard("alice"));
+        assertEquals(Collections.singletonMap(shard, Collections.singletonMap("7", 1L)), plan.shardDeltas());
+    }
+
+    @Test
+    public void resolve_keepsHigherScoresAndRewritesLegacyFormat() {
+        ScoreWritePlan plan = ScoreWritePlan.forBatch(Collections.singletonList(
+                new PendingScore("g1", "bob", "Bob", 5, NOW)));
+        Map<String, Map<String, Object>> current = new HashMap<>();
+        for (String path : plan.readPaths()) {
+            current.put(path, RankingRecordCodec.encodeRecord(9));
+        }
+        current.put(RankingSchema.recordPath("bob"), legacyRecord("bob", "Bob", 9));
+        current.put(RankingSchema.profilePath("bob"), RankingRecordCodec.encodeProfile("Bob"));
+
+        plan.resolve(current);
+
+        // 점수는 그대로, 형식만 2 판으로
+        assertEquals(Collections.singletonMap(RankingSchema.recordPath("bob"), RankingRecordCodec.encodeRecord(9)),
+                plan.sets());
+        assertEquals(0, plan.raisedRecords());
+        assertTrue(plan.shardDeltas().isEmpty());
+    }
+
+    @Test
+    public void resolve_raisedScoreMovesTheHistogramBucket() {
+        ScoreWritePlan plan = ScoreWritePlan.forBatch(Collections.singletonList(
+                new PendingScore("g1", "carol", null, 8, NOW)));
+        plan.resolve(Collections.singletonMap(RankingSchema.recordPath("carol"), RankingRecordCodec.encodeRecord(3)));
+
+        Map<String, Long> deltas = plan.shardDeltas()
+                .get(RankingSchema.histogramShardPath(RankingSchema.histogramShard("carol")));
+        assertEquals(Long.valueOf(-1), deltas.get("3"));
+        assertEquals(Long.valueOf(1), deltas.get("8"));
+        assertFalse(plan.sets().containsKey(RankingSchema.profilePath("carol"))); // 이름이 없다
+
+        Map<String, Object> update = ScoreWritePlan.bucketIncrements(deltas, delta -> "inc" + delta);
+        assertEquals("inc-1", ((Map<?, ?>) update.get(RankingSchema.FIELD_BUCKETS)).get("3"));
+    }
+
+    @Test
+    public void forLegacyEntries_keepsExistingProfiles() {
+        ScoreWritePlan plan = ScoreWritePlan.forLegacyEntries(Arrays.asList(
+                new RankEntry("dave", "Dave", 4), new RankEntry("erin", "Erin", 6)));
+        assertEquals(Arrays.asList(RankingSchema.recordPath("dave"), RankingSchema.recordPath("erin"),
+                RankingSchema.profilePath("dave"), RankingSchema.profilePath("erin")), plan.readPaths());
+
+        Map<String, Map<String, Object>> current = new HashMap<>();
+        current.put(RankingSchema.profilePath("dave"), RankingRecordCodec.encodeProfile("Renamed"));
+        current.put(RankingSchema.recordPath("erin"), RankingRecordCodec.encodeRecord(10));
+        plan.resolve(current);
+
+        assertEquals(RankingRecordCodec.encodeRecord(4), plan.sets().get(RankingSchema.recordPath("dave")));
+        assertFalse(plan.sets().containsKey(RankingSchema.profilePath("dave")));
+        assertFalse(plan.sets().containsKey(RankingSchema.recordPath("erin")));
+        assertEquals(RankingRecordCodec.encodeProfile("Erin"), plan.sets().get(RankingSchema.profilePath("erin")));
+        assertEquals(1, plan.raisedRecords());
+    }
+}
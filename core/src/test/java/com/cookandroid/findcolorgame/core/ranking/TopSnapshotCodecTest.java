@@ -0,0 +1,57 @@
+package com.cookandroid.findcolorgame.core.ranking;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class TopSnapshotCodecTest {
+
+    @Test
+    public void encodeDecode_roundTrips() {
+        List<RankEntry> entries = Arrays.asList(new RankEntry("bob", "Bob", 9), new RankEntry("alice", null, 5));
+
+        assertEquals(entries, TopSnapshotCodec.decode(TopSnapshotCodec.encode(entries)));
+        assertTrue(TopSnapshotCodec.decode(null).isEmpty());
+    }
+
+    @Test
+    public void decode_readsVersionOneEntriesAndSkipsBrokenRows() {
+        Map<String, Object> bob = new HashMap<>();
+        bob.put(RankingSchema.FIELD_KEY, "bob");
+        bob.put(RankingSchema.FIELD_NAME, "Bob");
+        bob.put(RankingSchema.FIELD_SCORE, 9L);
+        List<Object> rows = new ArrayList<>();
+        rows.add(bob);
+        rows.add("garbage");
+        rows.add(new HashMap<String, Object>());
+
+        assertEquals(Collections.singletonList(new RankEntry("bob", "Bob", 9)),
+                TopSnapshotCodec.decode(Collections.singletonMap(RankingSchema.FIELD_ENTRIES, rows)));
+    }
+
+    @Test
+    public void histogramShards_areSummedAndShardIsStable() {
+        Map<String, Long> first = new HashMap<>();
+        first.put("5", 2L);
+        first.put("9", 1L);
+        Map<String, Long> second = new HashMap<>();
+        second.put("9", 3L);
+        second.put("5", -2L);
+
+        ScoreHistogram histogram = ScoreHistogram.fromShards(Arrays.asList(first, second));
+        assertEquals(4, histogram.total());
+        assertEquals(1, histogram.rankOf(9));
+        assertEquals(5, histogram.rankOf(4));
+
+        int shard = RankingSchema.histogramShard("user-1");
+        assertTrue(shard >= 0 && shard < RankingSchema.HISTOGRAM_SHARDS);
+        assertEquals(shard, RankingSchema.histogramShard("user-1"));
+    }
+}
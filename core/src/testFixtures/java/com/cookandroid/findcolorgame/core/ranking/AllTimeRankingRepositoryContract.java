@@ -0,0 +1,136 @@
+package com.cookandroid.findcolorgame.core.ranking;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * 모든 AllTimeRankingRepository 구현이 지켜야 하는 동작. 구현마다 이 클래스를 상속해 newRepository 만 채운다.
+ * 매 테스트는 빈 저장소에서 시작한다고 가정한다.
+ * 점수 분포를 점수와 따로 고치는 구현도 있으므로 분포에 기대는 값은 잠시 기다리며 확인한다.
+ */
+public abstract class AllTimeRankingRepositoryContract {
+
+    private static final long TIMEOUT_SECONDS = 10;
+
+    protected abstract AllTimeRankingRepository newRepository() throws Exception;
+
+    private static <T> T await(CompletableFuture<T> future) throws Exception {
+        return future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private static void assertEventually(Object expected, Callable<Object> actual) throws Exception {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS);
+        Object last = actual.call();
+        while (!expected.equals(last) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            last = actual.call();
+        }
+        assertEquals(expected, last);
+    }
+
+    @Test
+    public void submit_keepsHighestScore() throws Exception {
+        AllTimeRankingRepository repository = newRepository();
+        await(repository.submit("alice", "Alice", 5));
+        await(repository.submit("alice", "Alice", 3));
+        await(repository.submit("alice", "Alice", 8));
+        await(repository.submit("alice", "Alice", 6));
+
+        RankEntry alice = await(repository.entryOf("alice"));
+        assertEquals(8, alice.getScore());
+        assertEquals("Alice", alice.getName());
+        assertNull(await(repository.entryOf("nobody")));
+    }
+
+    @Test
+    public void topN_ordersByScoreDescending() throws Exception {
+        AllTimeRankingRepository repository = newRepository();
+        await(repository.submit("alice", "Alice", 3));
+        await(repository.submit("bob", "Bob", 9));
+        await(repository.submit("carol", "Carol", 6));
+
+        List<RankEntry> top = await(repository.topN(2));
+        assertEquals(2, top.size());
+        assertEquals("bob", top.get(0).getUid());
+        assertEquals("carol", top.get(1).getUid());
+        assertEquals(3, await(repository.topSnapshot()).size());
+    }
+
+    @Test
+    public void cursorPages_visitEveryEntryOnceWithTies() throws Exception {
+        AllTimeRankingRepository repository = newRepository();
+        int[] scores = {5, 5, 5, 4, 4, 3, 1};
+        for (int i = 0; i < scores.length; i++) {
+            await(repository.submit("u" + i, null, scores[i]));
+        }
+
+        List<RankEntry> visited = new ArrayList<>();
+        RankEntry cursor = null;
+        while (true) {
+            List<RankEntry> page = await(repository.pageAfter(cursor, 2));
+            if (page.isEmpty()) {
+                break;
+            }
+            visited.addAll(page);
+            cursor = page.get(page.size() - 1);
+        }
+        Set<String> uids = new HashSet<>();
+        for (int i = 0; i < visited.size(); i++) {
+            assertTrue(uids.add(visited.get(i).getUid()));
+            if (i > 0) {
+                // 페이지 경계를 넘어서도 점수 내림차순, 같은 점수는 uid 오름차순이다
+                RankEntry previous = visited.get(i - 1);
+                RankEntry current = visited.get(i);
+                assertTrue(RankEntry.compare(previous.getScore(), previous.getUid(),
+                        current.getScore(), current.getUid()) < 0);
+            }
+        }
+        assertEquals(scores.length, visited.size());
+
+        // 위로 넘기는 페이지는 같은 순서에서 커서 바로 앞 줄들이다
+        List<RankEntry> before = await(repository.pageBefore(visited.get(4), 2));
+        assertEquals(visited.subList(2, 4), before);
+    }
+
+    @Test
+    public void rankOf_givesTiedScoresTheSameRank() throws Exception {
+        AllTimeRankingRepository repository = newRepository();
+        await(repository.submit("alice", "Alice", 9));
+        await(repository.submit("bob", "Bob", 7));
+        await(repository.submit("carol", "Carol", 7));
+        await(repository.submit("dave", "Dave", 1));
+
+        assertEventually(1, () -> await(repository.rankOf("alice")));
+        assertEventually(2, () -> await(repository.rankOf("bob")));
+        assertEventually(2, () -> await(repository.rankOf("carol")));
+        assertEventually(4, () -> await(repository.rankOf("dave")));
+        assertEquals(Integer.valueOf(0), await(repository.rankOf("nobody")));
+    }
+
+    @Test
+    public void histogram_movesRaisedScoresBetweenBuckets() throws Exception {
+        AllTimeRankingRepository repository = newRepository();
+        await(repository.submit("alice", "Alice", 3));
+        await(repository.submit("bob", "Bob", 5));
+        await(repository.submit("alice", "Alice", 7));
+        await(repository.submit("bob", "Bob", 2)); // 내려가지 않는다
+
+        // alice 의 이전 칸 빼기와 새 칸 더하기는 한 번에 들어간다
+        assertEventually(1L, () -> await(repository.histogram()).countOf(7));
+        ScoreHistogram histogram = await(repository.histogram());
+        assertEquals(2, histogram.total());
+        assertEquals(0, histogram.countOf(3));
+        assertEquals(1, histogram.countOf(5));
+        assertEquals(2, histogram.rankOf(5));
+        assertEquals(Integer.valueOf((int) histogram.rankOf(5)), await(repository.rankOf("bob")));
+    }
+}
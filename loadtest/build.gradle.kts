@@ -0,0 +1,27 @@
+plugins {
+    application
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_1_8
+    targetCompatibility = JavaVersion.VERSION_1_8
+}
+
+dependencies {
+    implementation(project(":core"))
+    implementation(libs.google.cloud.firestore)
+    testImplementation(libs.junit)
+}
+
+tasks.withType<JavaCompile>().configureEach {
+    options.encoding = "UTF-8"
+}
+
+// 메모리 대상 (기본값):
+//   ./gradlew :loadtest:run --args="--players=5000 --ops=50000 --concurrency=512 --threads=virtual"
+// Firestore 에뮬레이터 대상:
+//   FIRESTORE_EMULATOR_HOST=localhost:8080 ./gradlew :loadtest:run --args="--target=emulator --project=demo-findcolor"
+// --threads=virtual 은 JDK 21 이상에서 가상 스레드를 쓰고, 그보다 낮으면 스레드 풀로 돌아간다.
+application {
+    mainClass.set("com.cookandroid.findcolorgame.loadtest.LoadTest")
+}
@@ -0,0 +1,124 @@
+package com.cookandroid.findcolorgame.loadtest;
+
+import com.cookandroid.findcolorgame.core.ranking.DocumentSizes;
+import com.cookandroid.findcolorgame.core.ranking.PendingScore;
+import com.cookandroid.findcolorgame.core.ranking.RankEntry;
+import com.cookandroid.findcolorgame.core.ranking.RankTable;
+import com.cookandroid.findcolorgame.core.ranking.RankingRecordCodec;
+import com.cookandroid.findcolorgame.core.ranking.RankingSchema;
+import com.cookandroid.findcolorgame.core.ranking.ScoreQueue;
+import com.cookandroid.findcolorgame.core.ranking.ScoreWritePlan;
+import com.cookandroid.findcolorgame.core.ranking.TopSnapshotCodec;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FieldPath;
+import com.google.cloud.firestore.FieldValue;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.FirestoreOptions;
+import com.google.cloud.firestore.Query;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.SetOptions;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Firestore 에뮬레이터(FIRESTORE_EMULATOR_HOST)를 대상으로 한다.
+ * 점수 쓰기는 앱의 FirestoreScoreBackend.writeScores 처럼 core 의 ScoreWritePlan 이 정한 읽기와 쓰기를
+ * 서버용 SDK 로 옮기기만 하므로 두 쪽이 같은 문서를 쓴다.
+ */
+final class EmulatorTarget implements LoadTarget {
+
+    private static final long TIMEOUT_SECONDS = 30;
+
+    private final Firestore db;
+
+    EmulatorTarget(String projectId) {
+        this.db = FirestoreOptions.getDefaultInstance().toBuilder()
+                .setProjectId(projectId)
+                .build()
+                .getService();
+    }
+
+    @Override
+    public long submitScore(ScoreQueue deviceQueue, PendingScore score) throws Exception {
+        AtomicLong bytes = new AtomicLong();
+        deviceQueue.enqueue(score);
+        deviceQueue.flush(batch -> {
+            try {
+                db.runTransaction(transaction -> {
+                    bytes.set(0); // 충돌로 다시 실행되면 마지막 시도만 센다
+                    ScoreWritePlan plan = ScoreWritePlan.forBatch(batch);
+                    List<String> paths = plan.readPaths();
+                    DocumentReference[] refs = new DocumentReference[paths.size()];
+                    for (int i = 0; i < refs.length; i++) {
+                        refs[i] = db.document(paths.get(i));
+                    }
+                    Map<String, Map<String, Object>> current = new HashMap<>();
+                    for (DocumentSnapshot snapshot : transaction.getAll(refs).get()) {
+                        current.put(snapshot.getReference().getPath(), snapshot.getData());
+                        if (snapshot.exists()) {
+                            bytes.addAndGet(DocumentSizes.documentSize(snapshot.getReference().getPath(),
+                                    snapshot.getData()));
+                        }
+                    }
+                    plan.resolve(current);
+                    for (Map.Entry<String, Map<String, Object>> set : plan.sets().entrySet()) {
+                        transaction.set(db.document(set.getKey()), set.getValue());
+                        bytes.addAndGet(DocumentSizes.documentSize(set.getKey(), set.getValue()));
+                    }
+                    for (Map.Entry<String, Map<String, Long>> shard : plan.shardDeltas().entrySet()) {
+                        Map<String, Object> update = ScoreWritePlan.bucketIncrements(shard.getValue(),
+                                FieldValue::increment);
+                        transaction.set(db.document(shard.getKey()), update, SetOptions.merge());
+                        bytes.addAndGet(DocumentSizes.documentSize(shard.getKey(), update));
+                    }
+                    return null;
+                }).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (ExecutionException | TimeoutException e) {
+                throw new IOException("Ranking batch write failed", e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Ranking batch write interrupted", e);
+            }
+        });
+        return bytes.get();
+    }
+
+    @Override
+    public long readLeaderboard() throws Exception {
+        DocumentSnapshot top = db.collection(RankingSchema.COLLECTION_STATS).document(RankingSchema.DOC_TOP)
+                .get().get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        if (top.exists()) {
+            RankTable.of(TopSnapshotCodec.decode(top.getData()));
+            return DocumentSizes.documentSize(top.getReference().getPath(), top.getData());
+        }
+        // 압축 작업이 돌기 전에는 앱처럼 상위 목록 쿼리로 대신한다 (이름 채우기는 측정하지 않는다)
+        List<QueryDocumentSnapshot> documents = db.collection(RankingSchema.COLLECTION_RANKINGS)
+                .orderBy(RankingSchema.FIELD_COMPACT_SCORE, Query.Direction.DESCENDING)
+                .orderBy(FieldPath.documentId())
+                .limit(RankingSchema.MATERIALIZED_TOP_N)
+                .get().get(TIMEOUT_SECONDS, TimeUnit.SECONDS).getDocuments();
+        long bytes = 0;
+        List<RankEntry> entries = new ArrayList<>(documents.size());
+        for (QueryDocumentSnapshot document : documents) {
+            bytes += DocumentSizes.documentSize(document.getReference().getPath(), document.getData());
+            Integer score = RankingRecordCodec.scoreOf(document.getData());
+            entries.add(new RankEntry(document.getId(), null, score != null ? score : 0));
+        }
+        RankTable.of(entries);
+        return bytes;
+    }
+
+    @Override
+    public void close() throws Exception {
+        db.close();
+    }
+}
@@ -0,0 +1,67 @@
+package com.cookandroid.findcolorgame.loadtest;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 연산 한 종류의 지연 시간과 결과. 성공한 연산의 지연만 백분위에 넣는다.
+ * 기록은 여러 스레드에서 동시에 해도 되고, 요약은 부하가 끝난 뒤에 한 번 만든다.
+ */
+final class LatencyStats {
+
+    private final String name;
+    private final long[] latencyNanos;
+    private final AtomicInteger succeeded = new AtomicInteger();
+    private final AtomicInteger contentionFailures = new AtomicInteger();
+    private final AtomicInteger otherFailures = new AtomicInteger();
+    private final AtomicLong bytes = new AtomicLong();
+
+    LatencyStats(String name, int capacity) {
+        this.name = name;
+        this.latencyNanos = new long[capacity];
+    }
+
+    void success(long nanos, long operationBytes) {
+        int index = succeeded.getAndIncrement();
+        if (index < latencyNanos.length) {
+            latencyNanos[index] = nanos;
+        }
+        bytes.addAndGet(operationBytes);
+    }
+
+    void failure(boolean contention) {
+        (contention ? contentionFailures : otherFailures).incrementAndGet();
+    }
+
+    int succeeded() {
+        return succeeded.get();
+    }
+
+    int contentionFailures() {
+        return contentionFailures.get();
+    }
+
+    /**
+     * 성공한 연산 지연의 백분위 (nearest-rank). 기록이 없으면 0.
+     */
+    long percentileNanos(double percentile) {
+        int count = Math.min(succeeded.get(), latencyNanos.length);
+        if (count == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(latencyNanos, count);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile / 100.0 * count);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    String summary() {
+        int ok = succeeded.get();
+        return String.format(Locale.ROOT,
+                "%-7s ok=%d contention=%d other=%d p50=%.2fms p99=%.2fms bytes/op=%d",
+                name, ok, contentionFailures.get(), otherFailures.get(),
+                percentileNanos(50) / 1e6, percentileNanos(99) / 1e6, ok == 0 ? 0 : bytes.get() / ok);
+    }
+}
@@ -0,0 +1,22 @@
+package com.cookandroid.findcolorgame.loadtest;
+
+import com.cookandroid.findcolorgame.core.ranking.PendingScore;
+import com.cookandroid.findcolorgame.core.ranking.ScoreQueue;
+
+/**
+ * 부하를 받을 랭킹 백엔드. 두 연산 모두 앱과 같은 경로를 탄다.
+ * 점수 올리기는 기기 큐(ScoreQueue)에 넣고 flush 하는 ScoreUploader 의 한 번 실행과 같고,
+ * 랭킹 읽기는 RankActivity.loadRanking 의 첫 화면(상위 목록 읽기 후 RankTable 만들기)과 같다.
+ */
+interface LoadTarget extends AutoCloseable {
+
+    /**
+     * @return 이 연산에서 주고받은 문서 바이트 수 (Firestore 문서 크기 규칙으로 계산)
+     */
+    long submitScore(ScoreQueue deviceQueue, PendingScore score) throws Exception;
+
+    /**
+     * @return 이 연산에서 읽은 문서 바이트 수
+     */
+    long readLeaderboard() throws Exception;
+}
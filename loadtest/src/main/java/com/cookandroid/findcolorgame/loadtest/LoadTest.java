@@ -0,0 +1,190 @@
+package com.cookandroid.findcolorgame.loadtest;
+
+import com.cookandroid.findcolorgame.core.ranking.PendingScore;
+import com.cookandroid.findcolorgame.core.ranking.ScoreQueue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 많은 플레이어가 한꺼번에 게임을 끝내는 상황을 흉내 내는 부하 측정.
+ * 모든 연산을 준비해 두고 출발 신호로 동시에 풀어 놓은 뒤, 연산 종류별 p50/p99 지연,
+ * 충돌(트랜잭션 경합) 실패 수, 연산당 바이트를 출력한다.
+ *
+ * <pre>
+ * --target=memory|emulator   (기본 memory)
+ * --project=&lt;id&gt;            에뮬레이터 프로젝트 ID (기본 demo-findcolor)
+ * --players=N                서로 다른 플레이어 수 (기본 1000)
+ * --ops=N                    전체 연산 수 (기본 20000)
+ * --read-ratio=R             랭킹 읽기 비율 0..1 (기본 0.3)
+ * --concurrency=N            동시에 진행되는 연산 수 (기본 256)
+ * --threads=virtual|pooled   (기본 virtual, 지원하지 않는 JDK 면 pooled)
+ * --seed=N                   (기본 42)
+ * </pre>
+ */
+public final class LoadTest {
+
+    private static final double MEAN_STAGE = 12; // 게임 종료 스테이지의 평균 (지수 분포)
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        String targetName = options.getOrDefault("target", "memory");
+        int players = Integer.parseInt(options.getOrDefault("players", "1000"));
+        int ops = Integer.parseInt(options.getOrDefault("ops", "20000"));
+        double readRatio = Double.parseDouble(options.getOrDefault("read-ratio", "0.3"));
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "256"));
+        String threads = options.getOrDefault("threads", "virtual");
+        Random random = new Random(Long.parseLong(options.getOrDefault("seed", "42")));
+
+        File queueDir = Files.createTempDirectory("loadtest-queues").toFile();
+        ScoreQueue[] deviceQueues = new ScoreQueue[players]; // 플레이어마다 기기 하나
+        for (int i = 0; i < players; i++) {
+            deviceQueues[i] = new ScoreQueue(new File(queueDir, "player-" + i + ".bin"));
+        }
+
+        LatencyStats submits = new LatencyStats("submit", ops);
+        LatencyStats reads = new LatencyStats("read", ops);
+        ExecutorService executor = newExecutor(threads, concurrency);
+        Semaphore inFlight = new Semaphore(concurrency);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(ops);
+
+        try (LoadTarget target = "emulator".equals(targetName)
+                ? new EmulatorTarget(options.getOrDefault("project", "demo-findcolor"))
+                : new MemoryTarget()) {
+            for (int i = 0; i < ops; i++) {
+                boolean read = random.nextDouble() < readRatio;
+                int player = random.nextInt(players);
+                int stage = 1 + (int) (-Math.log(1 - random.nextDouble()) * MEAN_STAGE);
+                executor.execute(() -> {
+                    try {
+                        start.await();
+                        inFlight.acquire();
+                        try {
+                            if (read) {
+                                timeRead(target, reads);
+                            } else {
+                                timeSubmit(target, deviceQueues[player], player, stage, submits);
+                            }
+                        } finally {
+                            inFlight.release();
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            }
+
+            long startedAt = System.nanoTime();
+            start.countDown();
+            done.await();
+            long elapsedNanos = System.nanoTime() - startedAt;
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+
+            System.out.println(String.format(Locale.ROOT,
+                    "target=%s threads=%s concurrency=%d players=%d ops=%d wall=%.2fs throughput=%.0f ops/s",
+                    targetName, executorKind(executor), concurrency, players, ops, elapsedNanos / 1e9,
+                    ops / (elapsedNanos / 1e9)));
+            System.out.println(submits.summary());
+            System.out.println(reads.summary());
+        } finally {
+            deleteRecursively(queueDir);
+        }
+    }
+
+    private static void timeSubmit(LoadTarget target, ScoreQueue deviceQueue, int player, int stage,
+                                   LatencyStats stats) {
+        PendingScore score = new PendingScore(UUID.randomUUID().toString(), "player-" + player,
+                "Player " + player, stage, System.currentTimeMillis());
+        long begin = System.nanoTime();
+        try {
+            long bytes;
+            synchronized (deviceQueue) { // 기기 하나는 한 번에 한 게임만 끝낸다
+                bytes = target.submitScore(deviceQueue, score);
+            }
+            stats.success(System.nanoTime() - begin, bytes);
+        } catch (Exception e) {
+            stats.failure(isContention(e));
+        }
+    }
+
+    private static void timeRead(LoadTarget target, LatencyStats stats) {
+        long begin = System.nanoTime();
+        try {
+            long bytes = target.readLeaderboard();
+            stats.success(System.nanoTime() - begin, bytes);
+        } catch (Exception e) {
+            stats.failure(isContention(e));
+        }
+    }
+
+    /**
+     * 트랜잭션 경합으로 실패했는지. gRPC 상태 ABORTED 는 원인 사슬 어딘가에 메시지로 남는다.
+     */
+    static boolean isContention(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            String message = String.valueOf(cause.getMessage());
+            if (message.contains("ABORTED") || message.toLowerCase(Locale.ROOT).contains("contention")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 가상 스레드는 JDK 21 부터라서 Java 8 로 빌드한 이 모듈에서는 리플렉션으로 찾는다.
+     */
+    static ExecutorService newExecutor(String threads, int concurrency) {
+        if ("virtual".equals(threads)) {
+            try {
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException e) {
+                System.err.println("virtual threads unavailable on this JDK, using a thread pool");
+            }
+        }
+        return Executors.newFixedThreadPool(concurrency);
+    }
+
+    private static String executorKind(ExecutorService executor) {
+        return executor.getClass().getSimpleName().contains("ThreadPool") ? "pooled" : "virtual";
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("expected --name=value, got " + arg);
+            }
+            int eq = arg.indexOf('=');
+            options.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        return options;
+    }
+
+    private static void deleteRecursively(File file) throws IOException {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        Files.deleteIfExists(file.toPath());
+    }
+}
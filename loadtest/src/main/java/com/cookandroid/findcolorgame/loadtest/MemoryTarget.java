@@ -0,0 +1,62 @@
+package com.cookandroid.findcolorgame.loadtest;
+
+import com.cookandroid.findcolorgame.core.ranking.DocumentSizes;
+import com.cookandroid.findcolorgame.core.ranking.InMemoryRankingRepository;
+import com.cookandroid.findcolorgame.core.ranking.LeaderboardWindow;
+import com.cookandroid.findcolorgame.core.ranking.PendingScore;
+import com.cookandroid.findcolorgame.core.ranking.RankEntry;
+import com.cookandroid.findcolorgame.core.ranking.RankTable;
+import com.cookandroid.findcolorgame.core.ranking.RankingRecordCodec;
+import com.cookandroid.findcolorgame.core.ranking.RankingSchema;
+import com.cookandroid.findcolorgame.core.ranking.RepositoryScoreBackend;
+import com.cookandroid.findcolorgame.core.ranking.ScoreBackend;
+import com.cookandroid.findcolorgame.core.ranking.ScoreQueue;
+import com.cookandroid.findcolorgame.core.ranking.TopSnapshotCodec;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * InMemoryRankingRepository 를 대상으로 한다. 네트워크가 없으므로 바이트 수는
+ * Firestore 였다면 주고받았을 문서 크기로 계산한다.
+ */
+final class MemoryTarget implements LoadTarget {
+
+    private final InMemoryRankingRepository repository = new InMemoryRankingRepository();
+    private final ScoreBackend backend = new RepositoryScoreBackend(repository);
+
+    @Override
+    public long submitScore(ScoreQueue deviceQueue, PendingScore score) throws Exception {
+        AtomicLong bytes = new AtomicLong();
+        deviceQueue.enqueue(score);
+        deviceQueue.flush(batch -> {
+            // Firestore 백엔드는 기간별 기록마다 한 번 읽고 한 번 쓰고, 프로필을 한 번 읽는다
+            for (Map.Entry<String, PendingScore> target : LeaderboardWindow.bestByDocumentPath(batch).entrySet()) {
+                bytes.addAndGet(2 * DocumentSizes.documentSize(target.getKey(),
+                        RankingRecordCodec.encodeRecord(target.getValue().getScore())));
+            }
+            PendingScore latest = batch.get(batch.size() - 1);
+            bytes.addAndGet(DocumentSizes.documentSize(RankingSchema.COLLECTION_PROFILES + "/" + latest.getUid(),
+                    RankingRecordCodec.encodeProfile(latest.getName())));
+            backend.writeBatch(batch);
+        });
+        return bytes.get();
+    }
+
+    @Override
+    public long readLeaderboard() throws Exception {
+        List<RankEntry> top = repository.topSnapshot().get();
+        RankTable.of(top);
+        return DocumentSizes.documentSize(RankingSchema.COLLECTION_STATS + "/" + RankingSchema.DOC_TOP,
+                TopSnapshotCodec.encode(top));
+    }
+
+    @Override
+    public void close() {
+    }
+
+    int size() {
+        return repository.size();
+    }
+}
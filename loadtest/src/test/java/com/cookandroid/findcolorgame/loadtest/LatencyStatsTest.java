@@ -0,0 +1,33 @@
+package com.cookandroid.findcolorgame.loadtest;
+
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+public class LatencyStatsTest {
+
+    @Test
+    public void percentiles_useNearestRank() {
+        LatencyStats stats = new LatencyStats("submit", 100);
+        for (int i = 100; i >= 1; i--) {
+            stats.success(i * 1_000_000L, 10);
+        }
+        stats.failure(true);
+        stats.failure(false);
+
+        assertEquals(50_000_000L, stats.percentileNanos(50));
+        assertEquals(99_000_000L, stats.percentileNanos(99));
+        assertEquals(100, stats.succeeded());
+        assertEquals(1, stats.contentionFailures());
+        assertTrue(stats.summary().contains("bytes/op=10"));
+    }
+
+    @Test
+    public void contention_isFoundInCauseChain() {
+        assertTrue(LoadTest.isContention(new IOException("write failed",
+                new RuntimeException("ABORTED: Too much contention on these documents"))));
+        assertFalse(LoadTest.isContention(new IOException("timeout")));
+    }
+}
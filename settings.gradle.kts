@@ -21,4 +21,7 @@ dependencyResolutionManagement {
 
 rootProject.name = "FindColorGame"
 include(":app")
+include(":core")
+include(":compactor")
+include(":loadtest")
  
\ No newline at end of file